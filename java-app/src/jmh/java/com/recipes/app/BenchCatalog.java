@@ -0,0 +1,20 @@
+package com.recipes.app;
+
+import java.util.List;
+
+// Deterministic synthetic catalogs for the benchmarks: same size, same recipes
+final class BenchCatalog {
+    private BenchCatalog() {
+    }
+
+    // No image URLs, so nothing in a benchmark starts an image load
+    static List<Recipe> recipes(int size, long seed) {
+        return new CatalogGenerator(seed, null).recipes(0, size);
+    }
+
+    static RecipeManager manager(List<Recipe> recipes) {
+        RecipeManager manager = new RecipeManager();
+        manager.addRecipes(recipes);
+        return manager;
+    }
+}
@@ -0,0 +1,59 @@
+package com.recipes.app;
+
+import javafx.application.Platform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Card view cost: building a RecipeCard node for a recipe, as the grid does for each
+// new cell, against rebinding an existing card as it does while scrolling. Needs the
+// JavaFX toolkit, so it only runs where a display is available.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+    private List<Recipe> recipes;
+    private ImageService imageService;
+    private RecipeCard card;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Platform.startup(() -> { });
+        // No image URLs, so cards never start a load
+        recipes = BenchCatalog.recipes(1000, 42);
+        imageService = new ImageService(64L << 20, null);
+        card = new RecipeCard(imageService, recipe -> { });
+    }
+
+    private Recipe nextRecipe() {
+        Recipe recipe = recipes.get(next);
+        next = next + 1 == recipes.size() ? 0 : next + 1;
+        return recipe;
+    }
+
+    @Benchmark
+    public RecipeCard createRecipeCard() {
+        RecipeCard created = new RecipeCard(imageService, recipe -> { });
+        created.setRecipe(nextRecipe());
+        return created;
+    }
+
+    @Benchmark
+    public RecipeCard rebindRecipeCard() {
+        card.setRecipe(nextRecipe());
+        return card;
+    }
+}
@@ -0,0 +1,305 @@
+package com.recipes.app;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+// Deterministic synthetic catalogs at production scale. Recipe n depends only on the
+// seed and n, so any range can be generated on its own, in parallel or streamed to a
+// file without holding the catalog. Vocabularies and distributions are skewed the way
+// real catalogs are: a few ingredients are in most recipes, dinners outnumber
+// appetizers, vegan recipes are also vegetarian and dairy-free and use no animal
+// products, and most recipes take 15-60 minutes.
+//
+// Image URLs point at a fixed set of local fixture files (see writeImageFixtures), so
+// image loading and caching can be exercised without the network.
+//
+// Usage: mvn -Pbench test-compile, then
+//        java -cp target/bench/classes:target/bench/test-classes:<javafx-base jar> com.recipes.app.CatalogGenerator
+//        <count> <out.jsonl> [--seed 42] [--images <fixture dir>]
+final class CatalogGenerator {
+    static final int IMAGE_FIXTURES = 64;
+
+    private static final String[] CATEGORIES = {"Breakfast", "Lunch", "Dinner", "Dessert", "Snack", "Appetizer"};
+    private static final int[] CATEGORY_WEIGHTS = {14, 22, 34, 14, 10, 6};
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+    private static final int[] DIFFICULTY_WEIGHTS = {50, 35, 15};
+    private static final int[] SERVINGS = {1, 2, 2, 2, 4, 4, 4, 4, 6, 6, 8, 12};
+
+    // Most popular first; picks are skewed towards the front
+    private static final String[] PLANTS = {
+        "garlic", "onion", "olive oil", "salt", "black pepper", "tomato", "lemon", "flour", "sugar",
+        "rice", "potato", "carrot", "basil", "ginger", "bell pepper", "spinach", "mushroom", "chickpeas",
+        "lentils", "coconut milk", "cilantro", "cumin", "paprika", "soy sauce", "zucchini", "broccoli",
+        "black beans", "quinoa", "oats", "banana", "apple", "almonds", "walnuts", "maple syrup", "tofu",
+        "sweet potato", "cauliflower", "kale", "avocado", "lime", "chili flakes", "thyme", "rosemary",
+        "parsley", "cinnamon", "vanilla", "peanut butter", "sesame oil", "miso", "eggplant"
+    };
+    private static final String[] ANIMAL = {
+        "butter", "eggs", "milk", "parmesan", "chicken breast", "cheddar", "heavy cream", "yogurt",
+        "ground beef", "bacon", "salmon", "shrimp", "mozzarella", "feta", "pork shoulder", "honey",
+        "cod", "lamb", "ricotta", "turkey"
+    };
+    private static final String[] MEAT = {
+        "chicken breast", "ground beef", "bacon", "salmon", "shrimp", "pork shoulder", "cod", "lamb", "turkey"
+    };
+    private static final String[] ADJECTIVES = {
+        "Classic", "Easy", "Spicy", "Creamy", "Smoky", "Roasted", "Crispy", "Quick", "Hearty", "Zesty",
+        "Garlicky", "Herbed", "Golden", "Rustic", "Sticky", "Fresh", "Homestyle", "Charred", "Tangy", "Simple"
+    };
+    private static final String[][] DISHES = {
+        {"Pancakes", "Omelette", "Porridge", "Muffins", "Hash", "Smoothie Bowl", "Frittata", "Granola"},
+        {"Salad", "Wrap", "Soup", "Sandwich", "Grain Bowl", "Quesadilla", "Noodles", "Flatbread"},
+        {"Curry", "Stir-Fry", "Pasta", "Stew", "Risotto", "Tacos", "Traybake", "Casserole", "Pie", "Chili"},
+        {"Cake", "Cookies", "Brownies", "Tart", "Crumble", "Pudding", "Cheesecake", "Sorbet"},
+        {"Bites", "Dip", "Bars", "Chips", "Skewers", "Toast"},
+        {"Crostini", "Fritters", "Dumplings", "Spring Rolls", "Bruschetta", "Croquettes"}
+    };
+    private static final String[] UNITS = {"cups", "tbsp", "tsp", "g", "cloves", "pinch", "oz", "whole"};
+    private static final String[] DAIRY = {
+        "butter", "milk", "parmesan", "cheddar", "heavy cream", "yogurt", "mozzarella", "feta", "ricotta"
+    };
+    // Text around the ingredient in a step; steps ending in " for" get a number of minutes
+    private static final String[] STEP_BEFORE = {
+        "Chop the ", "Heat the ", "Season the ", "Simmer the ", "Roast the ", "Whisk the ", "Fold in the ",
+        "Toast the ", "Marinate the ", "Blend the ", "Garnish with the ", "Rest the "
+    };
+    private static final String[] STEP_AFTER = {
+        "", " in a large pan", " to taste", " for", " for", " until smooth", "", "", " for", "", "", " for"
+    };
+
+    private final long seed;
+    private final String imageBase;
+
+    // imageBase is prepended to fixture file names, e.g. a directory's file: URI; null for no images
+    CatalogGenerator(long seed, String imageBase) {
+        this.seed = seed;
+        this.imageBase = imageBase;
+    }
+
+    Recipe recipe(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(index)));
+        long high = random.nextLong() & ~0xF000L | 0x4000L;
+        long low = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        Recipe recipe = new Recipe(new UUID(high, low).toString());
+
+        int category = weighted(random, CATEGORY_WEIGHTS);
+        boolean vegan = random.nextInt(100) < 12;
+        boolean vegetarian = vegan || random.nextInt(100) < 22;
+        boolean dairyFree = vegan || random.nextInt(100) < 10;
+        boolean glutenFree = random.nextInt(100) < 15;
+
+        List<String> ingredients = new ArrayList<>();
+        int count = 4 + random.nextInt(10);
+        while (ingredients.size() < count) {
+            String ingredient = random.nextInt(100) < 75 || vegan ? skewed(random, PLANTS) : skewed(random, ANIMAL);
+            if (vegetarian && contains(MEAT, ingredient) || dairyFree && contains(DAIRY, ingredient)
+                    || ingredients.contains(ingredient)) {
+                continue;
+            }
+            ingredients.add(ingredient);
+        }
+
+        String main = ingredients.get(random.nextInt(Math.min(3, ingredients.size())));
+        String[] dishes = DISHES[category];
+        recipe.setTitle(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + capitalize(main) + " "
+            + dishes[random.nextInt(dishes.length)]);
+
+        StringBuilder text = new StringBuilder(256);
+        for (String ingredient : ingredients) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(1 + random.nextInt(4)).append(' ').append(UNITS[random.nextInt(UNITS.length)])
+                .append(' ').append(ingredient);
+        }
+        recipe.setIngredients(text.toString());
+
+        text.setLength(0);
+        for (int step = 1, steps = 3 + random.nextInt(6); step <= steps; step++) {
+            if (step > 1) {
+                text.append('\n');
+            }
+            int kind = random.nextInt(STEP_BEFORE.length);
+            text.append(step).append(". ").append(STEP_BEFORE[kind])
+                .append(ingredients.get(random.nextInt(ingredients.size()))).append(STEP_AFTER[kind]);
+            if (STEP_AFTER[kind].endsWith(" for")) {
+                text.append(' ').append(5 + random.nextInt(40)).append(" minutes");
+            }
+        }
+        recipe.setInstructions(text.toString());
+
+        recipe.setCategory(CATEGORIES[category]);
+        recipe.setDifficulty(DIFFICULTIES[weighted(random, DIFFICULTY_WEIGHTS)]);
+        // Log-normal around 30 minutes, in steps of 5
+        double minutes = Math.exp(Math.log(30) + 0.6 * gaussian(random));
+        recipe.setCookingTimeMinutes((int) Math.max(5, Math.min(480, Math.round(minutes / 5) * 5)));
+        recipe.setServings(SERVINGS[random.nextInt(SERVINGS.length)]);
+        recipe.setFavorite(random.nextInt(100) < 3);
+        if (imageBase != null && random.nextInt(10) != 0) {
+            recipe.setImageUrl(imageBase + fixtureName(random.nextInt(IMAGE_FIXTURES)));
+        }
+
+        if (vegan) {
+            recipe.addDietaryRestriction("Vegan");
+        }
+        if (vegetarian) {
+            recipe.addDietaryRestriction("Vegetarian");
+        }
+        if (glutenFree) {
+            recipe.addDietaryRestriction("Gluten-Free");
+        }
+        if (dairyFree) {
+            recipe.addDietaryRestriction("Dairy-Free");
+        }
+        return recipe;
+    }
+
+    List<Recipe> recipes(long from, int count) {
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipes.add(recipe(from + i));
+        }
+        return recipes;
+    }
+
+    // Streams count recipes to a JSON Lines file that RecipeImporter reads back
+    void writeJsonLines(long count, Path file) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            StringBuilder line = new StringBuilder(1024);
+            for (long i = 0; i < count; i++) {
+                line.setLength(0);
+                RecipeJson.appendRecipe(line, recipe(i)).append('\n');
+                out.append(line);
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.err.printf("%,d recipes written%n", i + 1);
+                }
+            }
+        }
+    }
+
+    // Writes the IMAGE_FIXTURES card-sized images the generated URLs refer to and returns
+    // the image base to pass to the constructor
+    static String writeImageFixtures(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int i = 0; i < IMAGE_FIXTURES; i++) {
+            Path file = directory.resolve(fixtureName(i));
+            if (Files.exists(file)) {
+                continue;
+            }
+            BufferedImage image = new BufferedImage((int) ImageService.WIDTH, (int) ImageService.HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            Color from = Color.getHSBColor(i / (float) IMAGE_FIXTURES, 0.5f, 0.9f);
+            Color to = Color.getHSBColor((i + 20) % IMAGE_FIXTURES / (float) IMAGE_FIXTURES, 0.6f, 0.6f);
+            graphics.setPaint(new GradientPaint(0, 0, from, image.getWidth(), image.getHeight(), to));
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.dispose();
+            ImageIO.write(image, "png", file.toFile());
+        }
+        return directory.toUri().toString();
+    }
+
+    private static String fixtureName(int index) {
+        return String.format(Locale.ROOT, "fixture-%02d.png", index);
+    }
+
+    // Index into weights, chosen in proportion to them
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    // Favors the front of the array: roughly Zipf-like popularity
+    private static String skewed(SplittableRandom random, String[] words) {
+        double u = random.nextDouble();
+        return words[(int) (words.length * u * u * u)];
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian before Java 17
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static boolean contains(String[] words, String word) {
+        for (String candidate : words) {
+            if (candidate.equals(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String capitalize(String words) {
+        StringBuilder result = new StringBuilder(words.length());
+        boolean start = true;
+        for (char c : words.toCharArray()) {
+            result.append(start ? Character.toUpperCase(c) : c);
+            start = c == ' ' || c == '-';
+        }
+        return result.toString();
+    }
+
+    // SplitMix64 finalizer, so neighbouring seeds and indexes give unrelated streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CatalogGenerator <count> <out.jsonl> [--seed 42] [--images <fixture dir>]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        Path out = Paths.get(args[1]);
+        long seed = 42;
+        String imageBase = null;
+        for (int i = 2; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--images":
+                    imageBase = writeImageFixtures(Paths.get(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        long start = System.nanoTime();
+        new CatalogGenerator(seed, imageBase).writeJsonLines(count, out);
+        System.out.printf("%,d recipes written to %s in %.1f s%n", count, out, (System.nanoTime() - start) / 1e9);
+    }
+}
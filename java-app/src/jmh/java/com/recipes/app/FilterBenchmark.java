@@ -0,0 +1,67 @@
+package com.recipes.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// Filtering with each RecipeFilter dimension on its own and all of them together.
+// evaluate is the index work done off the FX thread; setFilter also publishes the
+// result to the FilteredList the UI shows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilterBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"search", "category", "difficulty", "restriction", "favorites", "combined"})
+    public String dimension;
+
+    private RecipeManager manager;
+    private RecipeFilter filter;
+
+    @Setup
+    public void setUp() {
+        manager = BenchCatalog.manager(BenchCatalog.recipes(size, 42));
+        filter = new RecipeFilter();
+        boolean all = dimension.equals("combined");
+        if (all || dimension.equals("search")) {
+            filter.setSearchText("garlic lemon");
+        }
+        if (all || dimension.equals("category")) {
+            filter.setCategory("Dinner");
+        }
+        if (all || dimension.equals("difficulty")) {
+            filter.setDifficulty("Easy");
+        }
+        if (all || dimension.equals("restriction")) {
+            filter.getDietaryRestrictions().add("Vegan");
+        }
+        if (all || dimension.equals("favorites")) {
+            filter.setShowFavoritesOnly(true);
+        }
+    }
+
+    @Benchmark
+    public RecipeManager.FilterResult evaluate() {
+        return manager.evaluateFilter(filter);
+    }
+
+    @Benchmark
+    public int setFilter() {
+        manager.setFilter(filter);
+        return manager.getFilteredRecipes().size();
+    }
+}
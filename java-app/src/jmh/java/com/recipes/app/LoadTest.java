@@ -0,0 +1,259 @@
+package com.recipes.app;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+// Scale and load test for RecipeManager over a CatalogGenerator catalog. It loads the
+// catalog and reports the heap it retains per recipe, then replays a mixed workload
+// from several threads: point reads by id, filter evaluations (findRecipes, as the
+// server's list endpoint uses) and writes (edits, favorite toggles, adds that are
+// deleted again). Each thread's operation sequence comes from the seed, so a run can
+// be repeated exactly. Reports throughput and latency percentiles per operation.
+//
+// By default no view is kept, as in the headless server; --view true adds a thread
+// standing in for the FX thread that keeps the observable lists up to date.
+//
+// Usage: mvn -Pbench test-compile, then
+//        java -Xmx8g -cp target/bench/classes:target/bench/test-classes:<javafx-base jar> com.recipes.app.LoadTest
+//        [--recipes 1000000] [--threads 2 x cores] [--seconds 10] [--warmup 3]
+//        [--mix read,filter,write percentages, e.g. 80,15,5] [--seed 42] [--view false]
+class LoadTest {
+    private static final int LOAD_CHUNK = 50_000;
+    private static final String[] SEARCHES = {
+        "garlic", "lemon", "curry", "chicken", "pasta", "sweet potato", "coconut milk", "tofu", "spicy",
+        "salad", "cake", "mushroom risotto", "chickpeas", "roasted", "salmon", "ginger lime"
+    };
+    private static final String[] CATEGORIES = {"Breakfast", "Lunch", "Dinner", "Dessert", "Snack", "Appetizer"};
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+    private static final String[] RESTRICTIONS = {"Vegan", "Vegetarian", "Gluten-Free", "Dairy-Free"};
+
+    private enum Operation { READ, FILTER, WRITE }
+
+    public static void main(String[] args) throws Exception {
+        int recipes = 1_000_000;
+        int threads = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+        int seconds = 10;
+        int warmup = 3;
+        int[] mix = {80, 15, 5};
+        long seed = 42;
+        boolean view = false;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--recipes":
+                    recipes = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--mix":
+                    String[] parts = value.split(",");
+                    if (parts.length != 3) {
+                        throw new IllegalArgumentException("--mix needs read,filter,write percentages");
+                    }
+                    for (int p = 0; p < 3; p++) {
+                        mix[p] = Integer.parseInt(parts[p].trim());
+                    }
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--view":
+                    view = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (mix[0] + mix[1] + mix[2] <= 0) {
+            throw new IllegalArgumentException("--mix must not be all zero");
+        }
+
+        ExecutorService viewThread = null;
+        RecipeManager manager;
+        if (view) {
+            viewThread = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "view");
+                thread.setDaemon(true);
+                return thread;
+            });
+            manager = new RecipeManager(viewThread);
+        } else {
+            manager = RecipeManager.withoutView();
+        }
+
+        CatalogGenerator generator = new CatalogGenerator(seed, "file:///fixtures/");
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        int chunks = (recipes + LOAD_CHUNK - 1) / LOAD_CHUNK;
+        int total = recipes;
+        LongStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> generator.recipes(chunk * LOAD_CHUNK, (int) Math.min(LOAD_CHUNK, total - chunk * LOAD_CHUNK)))
+            .forEachOrdered(manager::addRecipes);
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+        if (viewThread != null) {
+            // Let the view catch up before measuring
+            viewThread.submit(() -> { }).get();
+        }
+        long retained = usedHeap() - heapBefore;
+        System.out.printf("%,d recipes loaded in %.1f s (%,.0f/s); retained heap %,d bytes/recipe (%,d MB total)%n",
+            recipes, loadSeconds, recipes / loadSeconds, retained / Math.max(1, recipes), retained >> 20);
+
+        List<Recipe> snapshot = manager.snapshot();
+        String[] ids = new String[snapshot.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = snapshot.get(i).getId();
+        }
+        List<RecipeFilter> filters = filters(new SplittableRandom(seed));
+        AtomicLong nextNew = new AtomicLong(recipes);
+
+        if (warmup > 0) {
+            run(manager, generator, ids, filters, nextNew, mix, threads, warmup, seed - 1);
+        }
+        System.out.printf("%d threads, %d s, mix read %d / filter %d / write %d%s%n",
+            threads, seconds, mix[0], mix[1], mix[2], view ? ", with view" : "");
+        Map<Operation, LatencyHistogram> latency = run(manager, generator, ids, filters, nextNew, mix, threads, seconds, seed);
+        long ops = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency.get(operation);
+            long count = histogram.count();
+            ops += count;
+            if (count > 0) {
+                System.out.printf("%-6s %,12d ops %,12.0f ops/s   p50 %,9d us   p99 %,9d us   p99.9 %,9d us   max %,9d us%n",
+                    operation, count, count / (double) seconds, histogram.percentile(0.50),
+                    histogram.percentile(0.99), histogram.percentile(0.999), histogram.max());
+            }
+        }
+        System.out.printf("total  %,12d ops %,12.0f ops/s; %,d recipes at the end%n", ops, ops / (double) seconds, manager.size());
+        if (viewThread != null) {
+            viewThread.shutdown();
+        }
+    }
+
+    private static Map<Operation, LatencyHistogram> run(RecipeManager manager, CatalogGenerator generator,
+            String[] ids, List<RecipeFilter> filters, AtomicLong nextNew, int[] mix, int threads, int seconds,
+            long seed) throws InterruptedException {
+        Map<Operation, LatencyHistogram> latency = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latency.put(operation, new LatencyHistogram());
+        }
+        int mixTotal = mix[0] + mix[1] + mix[2];
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + t);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(mixTotal);
+                    Operation operation = pick < mix[0] ? Operation.READ : pick < mix[0] + mix[1] ? Operation.FILTER : Operation.WRITE;
+                    long began = System.nanoTime();
+                    switch (operation) {
+                        case READ:
+                            if (manager.getRecipe(ids[random.nextInt(ids.length)]) == null) {
+                                throw new IllegalStateException("Lost a recipe");
+                            }
+                            break;
+                        case FILTER:
+                            manager.findRecipes(filters.get(random.nextInt(filters.size())));
+                            break;
+                        default:
+                            write(manager, generator, ids, nextNew, random);
+                            break;
+                    }
+                    latency.get(operation).record(System.nanoTime() - began);
+                }
+            }, "load-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return latency;
+    }
+
+    private static void write(RecipeManager manager, CatalogGenerator generator, String[] ids, AtomicLong nextNew,
+            SplittableRandom random) {
+        String id = ids[random.nextInt(ids.length)];
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            manager.toggleFavorite(id);
+        } else if (kind < 8) {
+            Recipe edited = manager.getRecipe(id).copy();
+            edited.setServings(1 + random.nextInt(12));
+            edited.setCookingTimeMinutes(5 + 5 * random.nextInt(24));
+            manager.updateRecipe(edited);
+        } else {
+            Recipe added = generator.recipe(nextNew.getAndIncrement());
+            manager.addRecipe(added);
+            manager.deleteRecipe(added.getId());
+        }
+    }
+
+    // A fixed mix of single-dimension and combined filters, like those users build
+    private static List<RecipeFilter> filters(SplittableRandom random) {
+        List<RecipeFilter> filters = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            RecipeFilter filter = new RecipeFilter();
+            int dimensions = 1 + random.nextInt(3);
+            for (int d = 0; d < dimensions; d++) {
+                switch (random.nextInt(5)) {
+                    case 0:
+                        filter.setSearchText(SEARCHES[random.nextInt(SEARCHES.length)]);
+                        break;
+                    case 1:
+                        filter.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                        break;
+                    case 2:
+                        filter.setDifficulty(DIFFICULTIES[random.nextInt(DIFFICULTIES.length)]);
+                        break;
+                    case 3:
+                        filter.getDietaryRestrictions().add(RESTRICTIONS[random.nextInt(RESTRICTIONS.length)]);
+                        break;
+                    default:
+                        filter.setShowFavoritesOnly(true);
+                        break;
+                }
+            }
+            filters.add(filter);
+        }
+        return filters;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,46 @@
+package com.recipes.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// "What can I cook" queries: a few uncommon ingredients against a pantry of the staples
+// most recipes use, which is the most postings a query walks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PantryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"tofu,miso,kale", "salt,black pepper,olive oil,garlic,onion,lemon,flour,sugar,butter,eggs"})
+    public String pantry;
+
+    private RecipeManager manager;
+    private List<String> items;
+
+    @Setup
+    public void setUp() {
+        manager = BenchCatalog.manager(BenchCatalog.recipes(size, 42));
+        items = Arrays.asList(pantry.split(","));
+    }
+
+    @Benchmark
+    public List<RecipeManager.PantryMatch> findByPantry() {
+        return manager.findByPantry(items, 20);
+    }
+}
@@ -0,0 +1,46 @@
+package com.recipes.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ranked top-k search: a common word, a misspelled one and a long query full of
+// frequent words, for small and large k.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"garlic lemon", "chiken", "pasta with garlic and olive oil"})
+    public String query;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private RecipeManager manager;
+
+    @Setup
+    public void setUp() {
+        manager = BenchCatalog.manager(BenchCatalog.recipes(size, 42));
+    }
+
+    @Benchmark
+    public List<RecipeManager.SearchHit> searchRanked() {
+        return manager.searchRanked(query, null, k);
+    }
+}
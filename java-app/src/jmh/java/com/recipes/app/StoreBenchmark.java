@@ -0,0 +1,85 @@
+package com.recipes.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Point lookups, mutations and the restriction and share-text helpers. Each invocation
+// picks the next recipe in a fixed pseudo-random order, so lookups miss the cache
+// the way a real catalog would.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class StoreBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private RecipeManager manager;
+    private String[] ids;
+    private int next;
+    private final StringBuilder share = new StringBuilder(1024);
+
+    @Setup
+    public void setUp() {
+        List<Recipe> recipes = BenchCatalog.recipes(size, 42);
+        manager = BenchCatalog.manager(recipes);
+        ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            // A stride coprime with the size visits every recipe once per pass, out of order
+            ids[i] = recipes.get((int) ((i * 40_503L) % size)).getId();
+        }
+    }
+
+    private String nextId() {
+        String id = ids[next];
+        next = next + 1 == ids.length ? 0 : next + 1;
+        return id;
+    }
+
+    @Benchmark
+    public Recipe findRecipeById() {
+        return manager.getRecipe(nextId());
+    }
+
+    @Benchmark
+    public boolean updateRecipe() {
+        Recipe edited = manager.getRecipe(nextId()).copy();
+        edited.setServings(edited.getServings() % 8 + 1);
+        return manager.updateRecipeIfPresent(edited);
+    }
+
+    // Deletes a recipe and adds it back, so the catalog keeps its size across iterations
+    @Benchmark
+    public boolean deleteRecipe() {
+        Recipe recipe = manager.getRecipe(nextId());
+        boolean deleted = manager.deleteRecipeIfPresent(recipe.getId());
+        manager.addRecipe(recipe);
+        return deleted;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Recipe> filterRecipesByDietaryRestriction() {
+        return manager.filterRecipesByDietaryRestriction("Vegan");
+    }
+
+    // What RecipeController.formatRecipeForSharing does
+    @Benchmark
+    public int formatRecipeForSharing() {
+        share.setLength(0);
+        return RecipeExporter.appendShareText(share, manager.getRecipe(nextId())).length();
+    }
+}
@@ -0,0 +1,177 @@
+package com.recipes.app;
+
+import javafx.collections.ListChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Concurrency stress run for RecipeManager, with a single thread standing in for the
+// FX application thread that owns the view. For 1, 2, 4... threads it measures
+// throughput of point reads, snapshot scans, writes and a mixed load, then checks
+// that the view, the snapshot and the id table agree.
+//
+// Usage: mvn -Pbench test-compile, then
+//        java -cp target/bench/classes:target/bench/test-classes:<javafx-base jar> com.recipes.app.StoreStress
+//        [recipes=200000] [seconds per run=2] [max threads=2 x cores]
+class StoreStress {
+    private static final String[] CATEGORIES = {"Breakfast", "Lunch", "Dinner", "Dessert", "Snack", "Appetizer"};
+    private static final String[] WORDS = {"tomato", "basil", "garlic", "rice", "bean", "lemon", "ginger", "onion"};
+
+    private enum Load { READ, SCAN, WRITE, MIXED }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(4, 2 * cores);
+
+        ExecutorService viewThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view");
+            thread.setDaemon(true);
+            return thread;
+        });
+        RecipeManager manager = new RecipeManager(viewThread);
+        AtomicLong viewChanges = new AtomicLong();
+        viewThread.submit(() -> manager.getFilteredRecipes().addListener(
+            (ListChangeListener<Recipe>) c -> viewChanges.incrementAndGet())).get();
+
+        List<Recipe> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            catalog.add(recipe(i));
+        }
+        manager.addRecipes(catalog);
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = catalog.get(i).getId();
+        }
+        System.out.printf("%,d recipes, %d cores, %.1f s per run%n", size, cores, seconds);
+
+        long writes = 0;
+        for (Load load : Load.values()) {
+            double single = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                long before = viewChanges.get();
+                long ops = run(manager, ids, load, threads, seconds);
+                double rate = ops / seconds;
+                if (threads == 1) {
+                    single = rate;
+                }
+                if (load == Load.WRITE || load == Load.MIXED) {
+                    writes += load == Load.WRITE ? ops : ops / 5;
+                }
+                System.out.printf("%-6s %3d threads: %,12.0f ops/s  x%.2f  view changes %,d%n",
+                    load, threads, rate, rate / single, viewChanges.get() - before);
+            }
+        }
+
+        // Let the view catch up, then compare it with the store on the view thread
+        String result = viewThread.submit(() -> verify(manager)).get();
+        System.out.printf("~%,d writes published as %,d view changes; %s%n", writes, viewChanges.get(), result);
+        viewThread.shutdown();
+        viewThread.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static long run(RecipeManager manager, String[] ids, Load load, int threads, double seconds)
+            throws InterruptedException {
+        AtomicLong total = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 64; i++) {
+                        boolean write = load == Load.WRITE || load == Load.MIXED && random.nextInt(5) == 0;
+                        if (write) {
+                            write(manager, ids, random);
+                        } else if (load == Load.SCAN) {
+                            scan(manager, random);
+                        } else if (manager.getRecipe(ids[random.nextInt(ids.length)]) == null) {
+                            throw new IllegalStateException("Lost a recipe");
+                        }
+                    }
+                    ops += 64;
+                }
+                total.addAndGet(ops);
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return total.get();
+    }
+
+    // Favorite toggles, edits, and adds that are deleted again, so the catalog keeps its size
+    private static void write(RecipeManager manager, String[] ids, ThreadLocalRandom random) {
+        String id = ids[random.nextInt(ids.length)];
+        switch (random.nextInt(3)) {
+            case 0:
+                manager.toggleFavorite(id);
+                break;
+            case 1:
+                Recipe current = manager.getRecipe(id);
+                Recipe edited = current.copy();
+                edited.setServings(1 + random.nextInt(8));
+                manager.updateRecipe(edited);
+                break;
+            default:
+                Recipe added = recipe(random.nextInt());
+                manager.addRecipe(added);
+                manager.deleteRecipe(added.getId());
+                break;
+        }
+    }
+
+    // Reads a run of recipes from a snapshot, as an export or list request would
+    private static void scan(RecipeManager manager, ThreadLocalRandom random) {
+        List<Recipe> snapshot = manager.snapshot();
+        int from = random.nextInt(snapshot.size());
+        int servings = 0;
+        for (int i = from; i < Math.min(from + 100, snapshot.size()); i++) {
+            servings += snapshot.get(i).getServings();
+        }
+        if (servings < 0) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static String verify(RecipeManager manager) {
+        List<Recipe> snapshot = manager.snapshot();
+        List<Recipe> view = manager.getAllRecipes();
+        if (!snapshot.equals(view)) {
+            return "MISMATCH: view differs from snapshot";
+        }
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            Recipe recipe = snapshot.get(slot);
+            if (recipe.slot != slot || manager.getRecipe(recipe.getId()) != recipe) {
+                return "MISMATCH at slot " + slot;
+            }
+        }
+        return "view, snapshot and ids agree (" + snapshot.size() + " recipes)";
+    }
+
+    private static Recipe recipe(int i) {
+        int n = Math.abs(i);
+        Recipe recipe = new Recipe(WORDS[n % WORDS.length] + " " + WORDS[n / 7 % WORDS.length] + " " + n,
+            WORDS[n / 3 % WORDS.length] + "\n" + WORDS[n / 5 % WORDS.length], "Cook.");
+        recipe.setCategory(CATEGORIES[n % CATEGORIES.length]);
+        recipe.setCookingTimeMinutes(5 + n % 120);
+        recipe.setServings(1 + n % 6);
+        return recipe;
+    }
+}
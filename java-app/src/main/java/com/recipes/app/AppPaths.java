@@ -0,0 +1,20 @@
+package com.recipes.app;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Locations of the application's local data; override with -Drecipes.home=<dir>
+final class AppPaths {
+    private AppPaths() {
+    }
+
+    static Path dataDirectory() throws IOException {
+        String home = System.getProperty("recipes.home");
+        Path dir = home != null
+            ? Paths.get(home)
+            : Paths.get(System.getProperty("user.home"), ".recipe-manager");
+        return Files.createDirectories(dir);
+    }
+}
@@ -0,0 +1,434 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-value bitmap indexes over category, difficulty, dietary restrictions and
+// favorites, keyed by slot. Values are dictionary-encoded to small int codes and
+// each slot keeps its codes so it can be unindexed without looking at the Recipe.
+// Cooking time and servings are filtered by range, through sorted RangeIndexes.
+//
+// A slot's dietary restrictions are a bit mask of their codes: the first 64 codes in
+// one long, any further ones in an array of extra words that only slots having such a
+// code carry, so there is no limit on distinct restrictions.
+class AttributeIndex {
+    private static final int NONE = -1;
+    private static final long[] NO_WORDS = new long[0];
+
+    private final Dimension categories = new Dimension();
+    private final Dimension difficulties = new Dimension();
+    private final Dimension restrictions = new Dimension();
+    private final BitSet favorites = new BitSet();
+    private final RangeIndex cookingTimes = new RangeIndex();
+    private final RangeIndex servings = new RangeIndex();
+
+    private int[] categoryCodes = new int[16];
+    private int[] difficultyCodes = new int[16];
+    private long[] restrictionMasks = new long[16];
+    // Mask words for codes 64 and up; null until any slot has one, and null per slot without
+    private long[][] extraMasks;
+    private int size;
+
+    void add(int slot, Recipe recipe) {
+        ensureCapacity(slot + 1);
+        store(slot, recipe, encodeRestrictions(recipe));
+        cookingTimes.add(slot, recipe.getCookingTimeMinutes());
+        servings.add(slot, recipe.getServings());
+        size = Math.max(size, slot + 1);
+    }
+
+    void update(int slot, Recipe recipe) {
+        long[] mask = encodeRestrictions(recipe);
+        setBits(slot, false);
+        store(slot, recipe, mask);
+        cookingTimes.update(slot, recipe.getCookingTimeMinutes());
+        servings.update(slot, recipe.getServings());
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        int last = size - 1;
+        setBits(slot, false);
+        if (slot != last) {
+            setBits(last, false);
+            categoryCodes[slot] = categoryCodes[last];
+            difficultyCodes[slot] = difficultyCodes[last];
+            restrictionMasks[slot] = restrictionMasks[last];
+            if (extraMasks != null) {
+                extraMasks[slot] = extraMasks[last];
+            }
+            setBits(slot, true);
+            favorites.set(slot, favorites.get(last));
+        }
+        if (extraMasks != null) {
+            extraMasks[last] = null;
+        }
+        favorites.clear(last);
+        cookingTimes.remove(slot);
+        servings.remove(slot);
+        size = last;
+    }
+
+    // Intersects the given slots with every attribute term of the filter
+    void and(BitSet slots, RecipeFilter filter) {
+        if (filter.getCategory() != null) {
+            slots.and(categories.bitsOf(filter.getCategory()));
+        }
+        if (filter.getDifficulty() != null) {
+            slots.and(difficulties.bitsOf(filter.getDifficulty()));
+        }
+        for (String restriction : filter.getDietaryRestrictions()) {
+            slots.and(restrictions.bitsOf(restriction));
+        }
+        if (filter.isShowFavoritesOnly()) {
+            slots.and(favorites);
+        }
+        andRanges(slots, filter);
+    }
+
+    private void andRanges(BitSet slots, RecipeFilter filter) {
+        cookingTimes.and(slots, filter.getMinCookingTimeMinutes(), filter.getMaxCookingTimeMinutes());
+        servings.and(slots, filter.getMinServings(), filter.getMaxServings());
+    }
+
+    private boolean inRanges(int slot, RecipeFilter filter) {
+        return cookingTimes.matches(slot, filter.getMinCookingTimeMinutes(), filter.getMaxCookingTimeMinutes())
+            && servings.matches(slot, filter.getMinServings(), filter.getMaxServings());
+    }
+
+    // Up to limit of the allowed slots, smallest key value first, walking the key's
+    // index from the filter's lower bound for it
+    int[] ascending(RecipeManager.SortKey key, RecipeFilter filter, BitSet allowed, int limit) {
+        if (key == RecipeManager.SortKey.COOKING_TIME) {
+            return cookingTimes.ascending(allowed, filter.getMinCookingTimeMinutes(), filter.getMaxCookingTimeMinutes(), limit);
+        }
+        return servings.ascending(allowed, filter.getMinServings(), filter.getMaxServings(), limit);
+    }
+
+    boolean matches(int slot, RecipeFilter filter) {
+        // A value no recipe has looks up as NONE, the code of a recipe without one
+        if (filter.getCategory() != null) {
+            int code = categories.lookup(filter.getCategory());
+            if (code == NONE || categoryCodes[slot] != code) {
+                return false;
+            }
+        }
+        if (filter.getDifficulty() != null) {
+            int code = difficulties.lookup(filter.getDifficulty());
+            if (code == NONE || difficultyCodes[slot] != code) {
+                return false;
+            }
+        }
+        for (String restriction : filter.getDietaryRestrictions()) {
+            int code = restrictions.lookup(restriction);
+            if (code == NONE || !hasRestriction(slot, code)) {
+                return false;
+            }
+        }
+        return (!filter.isShowFavoritesOnly() || favorites.get(slot)) && inRanges(slot, filter);
+    }
+
+    // Counts for the filter over the given slots, which should be the ones matching its
+    // search text. Works on whole bitmap words: per dimension, the slots matching every
+    // other constraint are intersected with each value's bitmap and counted.
+    Facets facets(RecipeFilter filter, BitSet candidates) {
+        Facets facets = new Facets(filter);
+        // The ranges narrow every count, as the restrictions do
+        candidates = (BitSet) candidates.clone();
+        andRanges(candidates, filter);
+        BitSet exceptCategory = matching(candidates, filter, false, true, true);
+        BitSet exceptDifficulty = matching(candidates, filter, true, false, true);
+        BitSet exceptFavorites = matching(candidates, filter, true, true, false);
+        BitSet all = matching(exceptFavorites, filter, true, true, true);
+        facets.categoryCounts = categories.countWithin(exceptCategory);
+        facets.difficultyCounts = difficulties.countWithin(exceptDifficulty);
+        facets.restrictionCounts = restrictions.countWithin(all);
+        facets.favoriteCount = intersectionSize(exceptFavorites, favorites);
+        facets.total = all.cardinality();
+        return facets;
+    }
+
+    // Copy of the slots narrowed by the restrictions and whichever other constraints are asked for
+    private BitSet matching(BitSet slots, RecipeFilter filter, boolean category, boolean difficulty, boolean favoritesOnly) {
+        BitSet result = (BitSet) slots.clone();
+        if (category && filter.getCategory() != null) {
+            result.and(categories.bitsOf(filter.getCategory()));
+        }
+        if (difficulty && filter.getDifficulty() != null) {
+            result.and(difficulties.bitsOf(filter.getDifficulty()));
+        }
+        for (String restriction : filter.getDietaryRestrictions()) {
+            result.and(restrictions.bitsOf(restriction));
+        }
+        if (favoritesOnly && filter.isShowFavoritesOnly()) {
+            result.and(favorites);
+        }
+        return result;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet both = (BitSet) b.clone();
+        both.and(a);
+        return both.cardinality();
+    }
+
+    BitSet withRestriction(String restriction) {
+        return (BitSet) restrictions.bitsOf(restriction).clone();
+    }
+
+    // The recipe's restriction mask as words, the first one always present
+    private long[] encodeRestrictions(Recipe recipe) {
+        long[] mask = new long[1];
+        for (String restriction : recipe.getDietaryRestrictions()) {
+            mask = withCode(mask, restrictions.encode(restriction));
+        }
+        return mask;
+    }
+
+    private static long[] withCode(long[] mask, int code) {
+        if (code == NONE) {
+            return mask;
+        }
+        int word = code >>> 6;
+        if (word >= mask.length) {
+            mask = Arrays.copyOf(mask, word + 1);
+        }
+        mask[word] |= 1L << code;
+        return mask;
+    }
+
+    private void store(int slot, Recipe recipe, long[] restrictionMask) {
+        categoryCodes[slot] = categories.encode(recipe.getCategory());
+        difficultyCodes[slot] = difficulties.encode(recipe.getDifficulty());
+        restrictionMasks[slot] = restrictionMask[0];
+        if (restrictionMask.length > 1) {
+            if (extraMasks == null) {
+                extraMasks = new long[categoryCodes.length][];
+            }
+            extraMasks[slot] = Arrays.copyOfRange(restrictionMask, 1, restrictionMask.length);
+        } else if (extraMasks != null) {
+            extraMasks[slot] = null;
+        }
+        setBits(slot, true);
+        favorites.set(slot, recipe.isFavorite());
+    }
+
+    private void setBits(int slot, boolean value) {
+        categories.set(categoryCodes[slot], slot, value);
+        difficulties.set(difficultyCodes[slot], slot, value);
+        for (long bits = restrictionMasks[slot]; bits != 0; bits &= bits - 1) {
+            restrictions.set(Long.numberOfTrailingZeros(bits), slot, value);
+        }
+        long[] extra = extraOf(slot);
+        for (int word = 0; word < extra.length; word++) {
+            for (long bits = extra[word]; bits != 0; bits &= bits - 1) {
+                restrictions.set((word + 1) * Long.SIZE + Long.numberOfTrailingZeros(bits), slot, value);
+            }
+        }
+    }
+
+    private boolean hasRestriction(int slot, int code) {
+        if (code < Long.SIZE) {
+            return (restrictionMasks[slot] & (1L << code)) != 0;
+        }
+        long[] extra = extraOf(slot);
+        int word = (code >>> 6) - 1;
+        return word < extra.length && (extra[word] & (1L << code)) != 0;
+    }
+
+    private long[] extraOf(int slot) {
+        long[] extra = extraMasks != null ? extraMasks[slot] : null;
+        return extra != null ? extra : NO_WORDS;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > categoryCodes.length) {
+            int newLength = Math.max(capacity, categoryCodes.length * 2);
+            categoryCodes = Arrays.copyOf(categoryCodes, newLength);
+            difficultyCodes = Arrays.copyOf(difficultyCodes, newLength);
+            restrictionMasks = Arrays.copyOf(restrictionMasks, newLength);
+            if (extraMasks != null) {
+                extraMasks = Arrays.copyOf(extraMasks, newLength);
+            }
+        }
+    }
+
+    // Facet counts for one filter: per category or difficulty, the recipes the filter
+    // would match with that value chosen instead; per dietary restriction, the matching
+    // recipes that have it; and the matching favorites, as if favorites only were on.
+    // Slots are added and taken out one at a time with count(), so the counts can follow
+    // every change to the catalog.
+    class Facets {
+        private final RecipeFilter filter;
+        // Filter values resolved to codes; a value no recipe has yet stays NONE until one does
+        private int category = NONE;
+        private int difficulty = NONE;
+        private long required;
+        private long[] requiredExtra = NO_WORDS;
+        private boolean restrictionsKnown;
+        private boolean resolved;
+
+        private int[] categoryCounts = new int[0];
+        private int[] difficultyCounts = new int[0];
+        private int[] restrictionCounts = new int[0];
+        private int favoriteCount;
+        private int total;
+
+        private Facets(RecipeFilter filter) {
+            this.filter = filter;
+        }
+
+        // Adds (delta 1) or takes out (delta -1) the slot as it is indexed now; matchesSearch
+        // tells whether it matches the filter's search text
+        void count(int slot, boolean matchesSearch, int delta) {
+            if (!matchesSearch) {
+                return;
+            }
+            resolve();
+            int slotCategory = categoryCodes[slot];
+            int slotDifficulty = difficultyCodes[slot];
+            long mask = restrictionMasks[slot];
+            long[] extra = extraOf(slot);
+            boolean categoryOk = filter.getCategory() == null || slotCategory == category && category != NONE;
+            boolean difficultyOk = filter.getDifficulty() == null || slotDifficulty == difficulty && difficulty != NONE;
+            boolean restrictionsOk = restrictionsKnown && (mask & required) == required
+                && hasExtra(extra) && inRanges(slot, filter);
+            boolean favorite = favorites.get(slot);
+            boolean favoriteOk = !filter.isShowFavoritesOnly() || favorite;
+
+            if (difficultyOk && restrictionsOk && favoriteOk && slotCategory != NONE) {
+                categoryCounts = add(categoryCounts, slotCategory, delta);
+            }
+            if (categoryOk && restrictionsOk && favoriteOk && slotDifficulty != NONE) {
+                difficultyCounts = add(difficultyCounts, slotDifficulty, delta);
+            }
+            if (categoryOk && difficultyOk && restrictionsOk) {
+                if (favorite) {
+                    favoriteCount += delta;
+                }
+                if (favoriteOk) {
+                    total += delta;
+                    for (long bits = mask; bits != 0; bits &= bits - 1) {
+                        restrictionCounts = add(restrictionCounts, Long.numberOfTrailingZeros(bits), delta);
+                    }
+                    for (int word = 0; word < extra.length; word++) {
+                        for (long bits = extra[word]; bits != 0; bits &= bits - 1) {
+                            int code = (word + 1) * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                            restrictionCounts = add(restrictionCounts, code, delta);
+                        }
+                    }
+                }
+            }
+        }
+
+        RecipeManager.FacetCounts snapshot() {
+            return new RecipeManager.FacetCounts(total, categories.counts(categoryCounts),
+                difficulties.counts(difficultyCounts), restrictions.counts(restrictionCounts), favoriteCount);
+        }
+
+        private void resolve() {
+            if (resolved) {
+                return;
+            }
+            category = categories.lookup(filter.getCategory());
+            difficulty = difficulties.lookup(filter.getDifficulty());
+            long[] mask = new long[1];
+            restrictionsKnown = true;
+            for (String restriction : filter.getDietaryRestrictions()) {
+                int code = restrictions.lookup(restriction);
+                if (code == NONE) {
+                    restrictionsKnown = false;
+                } else {
+                    mask = withCode(mask, code);
+                }
+            }
+            required = mask[0];
+            requiredExtra = mask.length > 1 ? Arrays.copyOfRange(mask, 1, mask.length) : NO_WORDS;
+            resolved = restrictionsKnown && (filter.getCategory() == null || category != NONE)
+                && (filter.getDifficulty() == null || difficulty != NONE);
+        }
+
+        // Whether the slot's extra words have every required code of 64 and up
+        private boolean hasExtra(long[] extra) {
+            for (int word = 0; word < requiredExtra.length; word++) {
+                long slotWord = word < extra.length ? extra[word] : 0;
+                if ((slotWord & requiredExtra[word]) != requiredExtra[word]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] add(int[] counts, int code, int delta) {
+            if (code >= counts.length) {
+                counts = Arrays.copyOf(counts, code + 1);
+            }
+            counts[code] += delta;
+            return counts;
+        }
+    }
+
+    // Value dictionary for one attribute plus one bitmap per value
+    private static class Dimension {
+        private static final BitSet EMPTY = new BitSet();
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> bits = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = bits.size();
+                codes.put(value, code);
+                values.add(value);
+                bits.add(new BitSet());
+            }
+            return code;
+        }
+
+        int lookup(String value) {
+            Integer code = codes.get(value);
+            return code == null ? NONE : code;
+        }
+
+        BitSet bitsOf(String value) {
+            int code = lookup(value);
+            return code == NONE ? EMPTY : bits.get(code);
+        }
+
+        // Per code, how many of the given slots have the value
+        int[] countWithin(BitSet slots) {
+            int[] counts = new int[bits.size()];
+            for (int code = 0; code < counts.length; code++) {
+                counts[code] = intersectionSize(slots, bits.get(code));
+            }
+            return counts;
+        }
+
+        // Value -> count for the values counted at least once, in code order
+        Map<String, Integer> counts(int[] countsByCode) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (int code = 0; code < countsByCode.length; code++) {
+                if (countsByCode[code] > 0) {
+                    counts.put(values.get(code), countsByCode[code]);
+                }
+            }
+            return counts;
+        }
+
+        void set(int code, int slot, boolean value) {
+            if (code != NONE) {
+                bits.get(code).set(slot, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.recipes.app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Versioned binary recipe catalog, read through a memory mapping. Each recipe has a
+// fixed-width record, so any field of any recipe can be read without decoding the rest.
+//
+// Layout (big-endian):
+//   header   int magic "RCAT" | int version | int count | int recordSize | long stringsOffset
+//   records  count x RECORD_SIZE:
+//              long stringsStart | int length x STRING_FIELDS (-1 = null)
+//              | int cookingTimeMinutes | int servings | int flags
+//   strings  UTF-8 bytes; each record's strings are contiguous, in field order
+// Dietary restrictions are stored as one string joined by RESTRICTION_SEPARATOR.
+final class CatalogFile implements AutoCloseable {
+    private static final int MAGIC = 0x52434154; // "RCAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int INGREDIENTS = 2;
+    private static final int INSTRUCTIONS = 3;
+    private static final int CATEGORY = 4;
+    private static final int DIFFICULTY = 5;
+    private static final int IMAGE_URL = 6;
+    private static final int RESTRICTIONS = 7;
+    private static final int STRING_FIELDS = 8;
+
+    private static final int RECORD_SIZE = 8 + 4 * STRING_FIELDS + 12;
+    private static final int FAVORITE_FLAG = 1;
+    private static final char RESTRICTION_SEPARATOR = '\u001F';
+    // Maps are limited to 2 GB each, so large files are mapped in segments
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int count;
+    private final long stringsOffset;
+
+    private CatalogFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long length = channel.size();
+        if (length < HEADER_SIZE) {
+            throw new IOException("Not a recipe catalog");
+        }
+        int segmentCount = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, length - start));
+        }
+        if (getInt(0) != MAGIC) {
+            throw new IOException("Not a recipe catalog");
+        }
+        if (getInt(4) != VERSION || getInt(12) != RECORD_SIZE) {
+            throw new IOException("Unsupported recipe catalog version " + getInt(4));
+        }
+        count = getInt(8);
+        stringsOffset = getLong(16);
+    }
+
+    static CatalogFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new CatalogFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static void write(Path file, Collection<Recipe> recipes) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int count = recipes.size();
+            long stringsOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC).putInt(VERSION).putInt(count).putInt(RECORD_SIZE).putLong(stringsOffset);
+            writeFully(out, header.flip(), 0);
+
+            Section records = new Section(out, HEADER_SIZE);
+            Section strings = new Section(out, stringsOffset);
+            int written = 0;
+            for (Recipe recipe : recipes) {
+                if (written++ == count) {
+                    throw new IOException("Recipe collection changed while writing the catalog");
+                }
+                records.putLong(strings.position() - stringsOffset);
+                String[] fields = {
+                    recipe.getId(), recipe.getTitle(), recipe.getIngredients(), recipe.getInstructions(),
+                    recipe.getCategory(), recipe.getDifficulty(), recipe.getImageUrl(),
+                    String.join(String.valueOf(RESTRICTION_SEPARATOR), new ArrayList<>(recipe.getDietaryRestrictions()))
+                };
+                for (String field : fields) {
+                    if (field == null) {
+                        records.putInt(-1);
+                    } else {
+                        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+                        records.putInt(bytes.length);
+                        strings.put(bytes);
+                    }
+                }
+                records.putInt(recipe.getCookingTimeMinutes());
+                records.putInt(recipe.getServings());
+                records.putInt(recipe.isFavorite() ? FAVORITE_FLAG : 0);
+            }
+            if (written != count) {
+                throw new IOException("Recipe collection changed while writing the catalog");
+            }
+            records.flush();
+            strings.flush();
+            out.force(true);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    String getId(int index) {
+        return getString(index, ID);
+    }
+
+    String getTitle(int index) {
+        return getString(index, TITLE);
+    }
+
+    String getIngredients(int index) {
+        return getString(index, INGREDIENTS);
+    }
+
+    String getInstructions(int index) {
+        return getString(index, INSTRUCTIONS);
+    }
+
+    String getCategory(int index) {
+        return getString(index, CATEGORY);
+    }
+
+    String getDifficulty(int index) {
+        return getString(index, DIFFICULTY);
+    }
+
+    String getImageUrl(int index) {
+        return getString(index, IMAGE_URL);
+    }
+
+    List<String> getDietaryRestrictions(int index) {
+        String joined = getString(index, RESTRICTIONS);
+        if (joined == null || joined.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(joined.split(String.valueOf(RESTRICTION_SEPARATOR)));
+    }
+
+    int getCookingTimeMinutes(int index) {
+        return getInt(recordOffset(index) + 8 + 4 * STRING_FIELDS);
+    }
+
+    int getServings(int index) {
+        return getInt(recordOffset(index) + 12 + 4 * STRING_FIELDS);
+    }
+
+    boolean isFavorite(int index) {
+        return (getInt(recordOffset(index) + 16 + 4 * STRING_FIELDS) & FAVORITE_FLAG) != 0;
+    }
+
+    // Materializes everything except ingredients and instructions
+    Recipe readSummary(int index, ValueDictionary.Scope dictionaries) {
+        Recipe recipe = new Recipe(getId(index));
+        recipe.useDictionaries(dictionaries);
+        recipe.setTitle(getTitle(index));
+        recipe.setCategory(getCategory(index));
+        recipe.setDifficulty(getDifficulty(index));
+        recipe.setImageUrl(getImageUrl(index));
+        recipe.setCookingTimeMinutes(getCookingTimeMinutes(index));
+        recipe.setServings(getServings(index));
+        recipe.setFavorite(isFavorite(index));
+        for (String restriction : getDietaryRestrictions(index)) {
+            recipe.addDietaryRestriction(restriction);
+        }
+        return recipe;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long recordOffset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return HEADER_SIZE + (long) index * RECORD_SIZE;
+    }
+
+    private String getString(int index, int field) {
+        long record = recordOffset(index);
+        long offset = stringsOffset + getLong(record);
+        for (int i = 0; i < field; i++) {
+            offset += Math.max(0, getInt(record + 8 + 4L * i));
+        }
+        int length = getInt(record + 8 + 4L * field);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        getBytes(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int getInt(long offset) {
+        MappedByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+        int position = (int) (offset % SEGMENT_SIZE);
+        if (position + 4 <= segment.limit()) {
+            return segment.getInt(position);
+        }
+        byte[] bytes = new byte[4];
+        getBytes(offset, bytes);
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    private long getLong(long offset) {
+        MappedByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+        int position = (int) (offset % SEGMENT_SIZE);
+        if (position + 8 <= segment.limit()) {
+            return segment.getLong(position);
+        }
+        byte[] bytes = new byte[8];
+        getBytes(offset, bytes);
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    private void getBytes(long offset, byte[] target) {
+        int copied = 0;
+        while (copied < target.length) {
+            long at = offset + copied;
+            ByteBuffer segment = segments[(int) (at / SEGMENT_SIZE)].duplicate();
+            segment.position((int) (at % SEGMENT_SIZE));
+            int n = Math.min(target.length - copied, segment.remaining());
+            segment.get(target, copied, n);
+            copied += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Buffered sequential writer for one region of the file
+    private static class Section {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long flushed;
+
+        Section(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushed = start;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                writeFully(channel, ByteBuffer.wrap(bytes), flushed);
+                flushed += bytes.length;
+                return;
+            }
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            int length = buffer.remaining();
+            writeFully(channel, buffer, flushed);
+            flushed += length;
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
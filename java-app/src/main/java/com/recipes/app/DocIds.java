@@ -0,0 +1,97 @@
+package com.recipes.app;
+
+import java.util.Arrays;
+
+// Document ids behind the slots of an append-only index. Each indexed version of a
+// recipe gets the next id, so postings of doc ids only ever grow at the end and stay
+// sorted without shifting. Deleting or re-indexing a slot just tombstones its old id,
+// and a swap-remove only points the moved slot's id at its new slot: no posting is
+// touched. Once tombstones outnumber live ids the owning index compacts, dropping them
+// from its postings and renumbering the rest, so that work is spread over the deletes
+// that made it necessary.
+class DocIds {
+    static final int DEAD = -1;
+    private static final int MIN_TOMBSTONES = 1024;
+
+    private int[] slotDocs = new int[16];
+    private int[] docSlots = new int[16];
+    // Ids handed out since the last compaction; live ones are those with a slot
+    private int count;
+    private int size;
+
+    // A new id for a slot added at the end
+    int add(int slot) {
+        if (slot >= slotDocs.length) {
+            slotDocs = Arrays.copyOf(slotDocs, Math.max(slot + 1, slotDocs.length * 2));
+        }
+        if (count == docSlots.length) {
+            docSlots = Arrays.copyOf(docSlots, count * 2);
+        }
+        int doc = count++;
+        docSlots[doc] = slot;
+        slotDocs[slot] = doc;
+        size = Math.max(size, slot + 1);
+        return doc;
+    }
+
+    // Tombstones the slot's id and gives it a new one, for re-indexed contents
+    int replace(int slot) {
+        docSlots[slotDocs[slot]] = DEAD;
+        return add(slot);
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        int last = size - 1;
+        docSlots[slotDocs[slot]] = DEAD;
+        if (slot != last) {
+            int moved = slotDocs[last];
+            slotDocs[slot] = moved;
+            docSlots[moved] = slot;
+        }
+        size = last;
+    }
+
+    int docOf(int slot) {
+        return slotDocs[slot];
+    }
+
+    // DEAD for a tombstone
+    int slotOf(int doc) {
+        return docSlots[doc];
+    }
+
+    // Upper bound of the ids in use
+    int count() {
+        return count;
+    }
+
+    // Live ids, one per slot
+    int size() {
+        return size;
+    }
+
+    boolean shouldCompact() {
+        return count - size > Math.max(size, MIN_TOMBSTONES);
+    }
+
+    // Drops the tombstones. Returns each old id's new id, DEAD for the dropped ones; live
+    // ids keep their order, so postings renumbered through it stay sorted.
+    int[] compact() {
+        int[] renumbered = new int[count];
+        int next = 0;
+        for (int doc = 0; doc < count; doc++) {
+            int slot = docSlots[doc];
+            if (slot == DEAD) {
+                renumbered[doc] = DEAD;
+            } else {
+                renumbered[doc] = next;
+                docSlots[next] = slot;
+                slotDocs[slot] = next;
+                next++;
+            }
+        }
+        count = next;
+        return renumbered;
+    }
+}
@@ -0,0 +1,91 @@
+package com.recipes.app;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.concurrent.Task;
+import javafx.util.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Runs RecipeFilter evaluation on a worker thread. Rapid changes are coalesced,
+// a newer filter cancels the one in flight, and only the latest result is
+// published to the FilteredList on the FX thread. A failed evaluation leaves the
+// current result in place and is handed to onFailed, also on the FX thread.
+class FilterService {
+    private static final Duration DEBOUNCE = Duration.millis(150);
+
+    private final RecipeManager recipeManager;
+    private final Runnable onPublished;
+    private final Consumer<Throwable> onFailed;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private final ReadOnlyDoubleWrapper latencyMillis = new ReadOnlyDoubleWrapper(this, "latencyMillis");
+
+    private RecipeFilter pending;
+    private Task<RecipeManager.FilterResult> running;
+
+    FilterService(RecipeManager recipeManager, Runnable onPublished, Consumer<Throwable> onFailed) {
+        this.recipeManager = recipeManager;
+        this.onPublished = onPublished;
+        this.onFailed = onFailed;
+        debounce.setOnFinished(e -> runPending());
+    }
+
+    // Waits for a pause in changes (e.g. typing) before evaluating
+    void submit(RecipeFilter filter) {
+        pending = new RecipeFilter(filter);
+        debounce.playFromStart();
+    }
+
+    void submitNow(RecipeFilter filter) {
+        pending = new RecipeFilter(filter);
+        debounce.stop();
+        runPending();
+    }
+
+    // Time from starting evaluation to the result being visible, in milliseconds
+    ReadOnlyDoubleProperty latencyMillisProperty() {
+        return latencyMillis.getReadOnlyProperty();
+    }
+
+    private void runPending() {
+        if (running != null) {
+            running.cancel(true);
+        }
+        RecipeFilter filter = pending;
+        pending = null;
+
+        long start = System.nanoTime();
+        Task<RecipeManager.FilterResult> task = new Task<>() {
+            @Override
+            protected RecipeManager.FilterResult call() {
+                return recipeManager.evaluateFilter(filter);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (running != task) {
+                return;
+            }
+            running = null;
+            recipeManager.publishFilter(task.getValue());
+            latencyMillis.set((System.nanoTime() - start) / 1_000_000.0);
+            onPublished.run();
+        });
+        task.setOnFailed(e -> {
+            // A failure of a superseded filter no longer matters
+            if (running != task) {
+                return;
+            }
+            running = null;
+            onFailed.accept(task.getException());
+        });
+        running = task;
+        executor.execute(task);
+    }
+}
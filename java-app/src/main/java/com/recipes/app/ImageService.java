@@ -0,0 +1,205 @@
+package com.recipes.app;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Loads recipe images off the FX thread, decoded at card size, and keeps them in an
+// LRU cache bounded by decoded bytes. Concurrent requests for one URL share a load.
+// Decoded thumbnails are also persisted to a ThumbnailStore (when one is given), which
+// is consulted before the network so cold starts and offline use read local bytes.
+// A URL that failed to load is not tried again until FAILURE_TTL_NANOS have passed.
+// All methods must be called on the FX thread; callbacks also run there.
+class ImageService {
+    static final double WIDTH = 300;
+    static final double HEIGHT = 200;
+    private static final int LOADER_THREADS = 2;
+    static final long FAILURE_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_FAILURES = 4096;
+
+    private final long maxBytes;
+    private final ThumbnailStore thumbnails;
+    private final LinkedHashMap<String, Image> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, List<Consumer<Image>>> inFlight = new HashMap<>();
+    // Failed URL -> System.nanoTime() after which it may be tried again; also used by the
+    // warm-up thread
+    private final Map<String, Long> failures = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "recipe-image");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-thumbnail-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Image placeholder = createPlaceholder();
+    private long cachedBytes;
+
+    ImageService(long maxBytes, ThumbnailStore thumbnails) {
+        this.maxBytes = maxBytes;
+        this.thumbnails = thumbnails;
+    }
+
+    Image getPlaceholder() {
+        return placeholder;
+    }
+
+    // Delivers the image (or null if it cannot be loaded), immediately when cached
+    void load(String url, Consumer<Image> callback) {
+        Image cached = cache.get(url);
+        if (cached != null) {
+            Metrics.IMAGE_CACHE_HITS.increment();
+            callback.accept(cached);
+            return;
+        }
+        if (recentlyFailed(url)) {
+            // A cached answer as well, just a negative one
+            Metrics.IMAGE_CACHE_HITS.increment();
+            callback.accept(null);
+            return;
+        }
+        Metrics.IMAGE_CACHE_MISSES.increment();
+        List<Consumer<Image>> waiting = inFlight.get(url);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        inFlight.put(url, waiting);
+        long requested = Metrics.start();
+        executor.execute(() -> {
+            Image image = decode(url);
+            Metrics.IMAGE_LOAD.stop(requested);
+            Platform.runLater(() -> complete(url, image));
+        });
+    }
+
+    // Fills the thumbnail store in the background for URLs it does not have yet
+    void warmUp(Collection<String> urls) {
+        if (thumbnails == null) {
+            return;
+        }
+        Set<String> pending = new LinkedHashSet<>(urls);
+        pending.remove(null);
+        warmUpExecutor.execute(() -> {
+            for (String url : pending) {
+                if (!thumbnails.contains(url) && !recentlyFailed(url)) {
+                    fetch(url);
+                }
+            }
+        });
+    }
+
+    private Image decode(String url) {
+        if (thumbnails != null) {
+            Image thumbnail = thumbnails.get(url);
+            if (thumbnail != null) {
+                Metrics.THUMBNAIL_HITS.increment();
+                return thumbnail;
+            }
+        }
+        Metrics.IMAGE_FETCHES.increment();
+        return fetch(url);
+    }
+
+    private Image fetch(String url) {
+        Image image;
+        try {
+            image = new Image(url, WIDTH, HEIGHT, true, true, false);
+        } catch (Exception e) {
+            recordFailure(url);
+            return null;
+        }
+        if (image.isError()) {
+            recordFailure(url);
+            return null;
+        }
+        if (thumbnails != null) {
+            try {
+                thumbnails.put(url, image);
+            } catch (IOException e) {
+                System.err.println("Could not store thumbnail for " + url + ": " + e.getMessage());
+            }
+        }
+        return image;
+    }
+
+    private boolean recentlyFailed(String url) {
+        Long retryAt = failures.get(url);
+        if (retryAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - retryAt < 0) {
+            return true;
+        }
+        failures.remove(url, retryAt);
+        return false;
+    }
+
+    // Bounded so a catalog full of dead links cannot grow it without limit: expired entries
+    // are dropped first, and past the bound new failures are simply not remembered
+    private void recordFailure(String url) {
+        long now = System.nanoTime();
+        if (failures.size() >= MAX_FAILURES) {
+            failures.values().removeIf(retryAt -> now - retryAt >= 0);
+        }
+        if (failures.size() < MAX_FAILURES) {
+            failures.put(url, now + FAILURE_TTL_NANOS);
+        }
+    }
+
+    private void complete(String url, Image image) {
+        if (image != null) {
+            put(url, image);
+        }
+        for (Consumer<Image> callback : inFlight.remove(url)) {
+            callback.accept(image);
+        }
+    }
+
+    private void put(String url, Image image) {
+        cache.put(url, image);
+        cachedBytes += sizeOf(image);
+        Iterator<Image> eldest = cache.values().iterator();
+        while (cachedBytes > maxBytes && cache.size() > 1) {
+            cachedBytes -= sizeOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static Image createPlaceholder() {
+        WritableImage image = new WritableImage(3, 2);
+        PixelWriter writer = image.getPixelWriter();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 2; y++) {
+                writer.setColor(x, y, Color.web("#e0e0e0"));
+            }
+        }
+        return image;
+    }
+}
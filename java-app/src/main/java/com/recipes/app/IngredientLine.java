@@ -0,0 +1,226 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// One parsed ingredient: "2 1/2 cups fresh cherry tomatoes, halved" becomes quantity 2.5,
+// unit "cup" and name "cherry tomato". Names are normalized (lowercase, no preparation
+// words, last word singular) so the same ingredient written differently compares equal.
+final class IngredientLine {
+    private static final Map<String, String> UNITS = new HashMap<>();
+    private static final Set<String> PREPARATION = new HashSet<>(Arrays.asList(
+        "fresh", "frozen", "dried", "chopped", "minced", "diced", "sliced", "grated", "shredded",
+        "crushed", "peeled", "softened", "melted", "large", "medium", "small", "ripe", "raw",
+        "cooked", "finely", "roughly", "thinly", "extra", "virgin", "organic", "about"
+    ));
+    private static final String FRACTIONS = "¼½¾⅓⅔⅛";
+    private static final double[] FRACTION_VALUES = {0.25, 0.5, 0.75, 1 / 3.0, 2 / 3.0, 0.125};
+    private static final Pattern PARENTHESES = Pattern.compile("\\([^)]*\\)");
+    private static final Pattern RANGE = Pattern.compile("([\\d./]+)\\s*(?:-|to)\\s*[\\d./]+");
+    private static final Pattern PUNCTUATION = Pattern.compile("[^\\p{L}\\p{N}']");
+    // Phrases marking an ingredient the recipe does without
+    private static final String[] OPTIONAL = {"to taste", "for topping", "for serving", "for garnish", "of choice", "optional"};
+
+    static {
+        String[][] units = {
+            {"cup", "cup", "cups", "c"},
+            {"tbsp", "tbsp", "tbs", "tablespoon", "tablespoons"},
+            {"tsp", "tsp", "teaspoon", "teaspoons"},
+            {"g", "g", "gram", "grams"},
+            {"kg", "kg", "kilogram", "kilograms"},
+            {"ml", "ml", "milliliter", "milliliters", "millilitre", "millilitres"},
+            {"l", "l", "liter", "liters", "litre", "litres"},
+            {"oz", "oz", "ounce", "ounces"},
+            {"lb", "lb", "lbs", "pound", "pounds"},
+            {"clove", "clove", "cloves"},
+            {"pinch", "pinch", "pinches"},
+            {"dash", "dash", "dashes"},
+            {"can", "can", "cans", "tin", "tins"},
+            {"package", "package", "packages", "pack", "packs"},
+            {"slice", "slice", "slices"},
+            {"stick", "stick", "sticks"},
+            {"sprig", "sprig", "sprigs"},
+            {"bunch", "bunch", "bunches"},
+            {"handful", "handful", "handfuls"},
+            {"whole", "whole"},
+        };
+        for (String[] unit : units) {
+            for (int i = 1; i < unit.length; i++) {
+                UNITS.put(unit[i], unit[0]);
+            }
+        }
+    }
+
+    // NaN when the line gives no amount
+    final double quantity;
+    // Canonical unit, or null
+    final String unit;
+    final String name;
+    final boolean optional;
+
+    private IngredientLine(double quantity, String unit, String name, boolean optional) {
+        this.quantity = quantity;
+        this.unit = unit;
+        this.name = name;
+        this.optional = optional;
+    }
+
+    // One entry per ingredient named in the text: one per line, two for "salt and pepper".
+    // Lines naming nothing recognizable are left out.
+    static List<IngredientLine> parseAll(String ingredients) {
+        List<IngredientLine> lines = new ArrayList<>();
+        if (ingredients == null) {
+            return lines;
+        }
+        for (String line : ingredients.split("\n")) {
+            parse(line, lines);
+        }
+        return lines;
+    }
+
+    // The normalized name alone, as used for pantry items: "Tomatoes" becomes "tomato"
+    static String normalizeName(String text) {
+        List<IngredientLine> lines = new ArrayList<>();
+        parse(text, lines);
+        return lines.isEmpty() ? null : lines.get(0).name;
+    }
+
+    private static void parse(String line, List<IngredientLine> into) {
+        // Patterns are only run on lines that can match: this parses every recipe on load
+        String text = line.toLowerCase();
+        boolean optional = false;
+        if (text.indexOf('(') >= 0) {
+            // A phrase in parentheses, as in "(optional)", still marks the line
+            for (String phrase : OPTIONAL) {
+                optional |= text.contains(phrase);
+            }
+            text = PARENTHESES.matcher(text).replaceAll(" ");
+        }
+        for (String phrase : OPTIONAL) {
+            int at = text.indexOf(phrase);
+            if (at >= 0) {
+                optional = true;
+                text = text.substring(0, at);
+            }
+        }
+        int comma = text.indexOf(',');
+        if (comma >= 0) {
+            text = text.substring(0, comma);
+        }
+        // A range such as "2-3" or "2 to 3" counts as its lower end
+        if (text.indexOf('-') >= 0 || text.contains(" to ")) {
+            text = RANGE.matcher(text).replaceAll("$1");
+        }
+        String[] words = words(text);
+        int i = 0;
+        double quantity = Double.NaN;
+        for (double amount; i < words.length && !Double.isNaN(amount = amount(words[i])); i++) {
+            // "1 1/2" adds up
+            quantity = Double.isNaN(quantity) ? amount : quantity + amount;
+        }
+        String unit = null;
+        if (i < words.length && UNITS.containsKey(words[i]) && i + 1 < words.length) {
+            unit = UNITS.get(words[i++]);
+            if (i + 1 < words.length && words[i].equals("of")) {
+                i++;
+            }
+        }
+        List<String> name = new ArrayList<>();
+        for (; i <= words.length; i++) {
+            if (i == words.length || words[i].equals("and") || words[i].equals("&")) {
+                if (!name.isEmpty()) {
+                    into.add(new IngredientLine(quantity, unit, join(name), optional));
+                    name.clear();
+                }
+            } else if (words[i].equals("or")) {
+                // Alternatives: the first one names the ingredient
+                while (i + 1 < words.length && !words[i + 1].equals("and")) {
+                    i++;
+                }
+            } else if (!PREPARATION.contains(words[i]) && hasLetter(words[i])) {
+                name.add(isClean(words[i]) ? words[i] : PUNCTUATION.matcher(words[i]).replaceAll(""));
+            }
+        }
+    }
+
+    // Split on whitespace and hyphens
+    private static String[] words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean separator = i == text.length() || Character.isWhitespace(text.charAt(i)) || text.charAt(i) == '-';
+            if (!separator && start < 0) {
+                start = i;
+            } else if (separator && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static boolean hasLetter(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isLetter(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isClean(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '\'') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String join(List<String> words) {
+        int last = words.size() - 1;
+        words.set(last, singular(words.get(last)));
+        return String.join(" ", words);
+    }
+
+    private static String singular(String word) {
+        if (word.length() <= 3 || word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")) {
+            return word;
+        }
+        if (word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        return word.endsWith("s") ? word.substring(0, word.length() - 1) : word;
+    }
+
+    // A number such as 2, 0.5, 1/4, ½ or 1½; NaN for anything else
+    private static double amount(String word) {
+        int fraction = word.isEmpty() ? -1 : FRACTIONS.indexOf(word.charAt(word.length() - 1));
+        if (fraction >= 0) {
+            double whole = word.length() == 1 ? 0 : amount(word.substring(0, word.length() - 1));
+            return whole + FRACTION_VALUES[fraction];
+        }
+        if (word.isEmpty() || !(Character.isDigit(word.charAt(0)) || word.charAt(0) == '.')) {
+            return Double.NaN;
+        }
+        try {
+            int slash = word.indexOf('/');
+            if (slash > 0) {
+                return Double.parseDouble(word.substring(0, slash)) / Double.parseDouble(word.substring(slash + 1));
+            }
+            return Double.parseDouble(word);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.recipes.app;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.time.Instant;
 
 public class Main extends Application {
+    private RecipeController controller;
 
     @Override
     public void start(Stage primaryStage) {
+        long startCalled = System.nanoTime();
         try {
             // Load the FXML file
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/recipe_form.fxml"));
             Parent root = loader.load();
+            controller = loader.getController();
 
             // Create the scene and set the stylesheet
             Scene scene = new Scene(root);
@@ -25,6 +32,8 @@ public class Main extends Application {
             primaryStage.setMinHeight(600);
             primaryStage.setScene(scene);
             primaryStage.show();
+            reportFirstFrame(scene, startCalled);
+            Metrics.publish();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -32,6 +41,37 @@ public class Main extends Application {
         }
     }
 
+    // Prints how long after JVM start the first frame was laid out, once its pulse runs.
+    // With -Drecipes.exitAfterFirstFrame=true the app exits shortly after, which is how
+    // the cds build profile records which classes a launch loads.
+    private void reportFirstFrame(Scene scene, long startCalled) {
+        Runnable[] firstPulse = new Runnable[1];
+        firstPulse[0] = () -> {
+            scene.removePostLayoutPulseListener(firstPulse[0]);
+            long inStart = (System.nanoTime() - startCalled) / 1_000_000;
+            Instant launched = ProcessHandle.current().info().startInstant().orElse(null);
+            if (launched != null) {
+                long sinceLaunch = java.time.Duration.between(launched, Instant.now()).toMillis();
+                System.out.printf("First frame %d ms after JVM start (%d ms after Application.start)%n", sinceLaunch, inStart);
+            } else {
+                System.out.printf("First frame %d ms after Application.start%n", inStart);
+            }
+            if (Boolean.getBoolean("recipes.exitAfterFirstFrame")) {
+                PauseTransition settle = new PauseTransition(Duration.seconds(1));
+                settle.setOnFinished(e -> Platform.exit());
+                settle.play();
+            }
+        };
+        scene.addPostLayoutPulseListener(firstPulse[0]);
+    }
+
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,243 @@
+package com.recipes.app;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runtime timers and counters, published as the JMX MBean com.recipes.app:type=Metrics
+// and, with -Drecipes.metrics.log=<seconds>, logged periodically.
+//
+// Recording allocates nothing: timers are LatencyHistograms and counters LongAdders.
+// -Drecipes.metrics=false turns all of it off. ENABLED is then a constant false, so
+// the JIT drops the instrumentation at every call site.
+//
+//   long start = Metrics.start();
+//   ...
+//   Metrics.MUTATION.stop(start);
+final class Metrics {
+    static final boolean ENABLED = !"false".equals(System.getProperty("recipes.metrics"));
+
+    private static final List<Timer> TIMERS = new ArrayList<>();
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+
+    static final Timer FILTER_EVALUATION = new Timer("filterEvaluation");
+    static final Timer FILTER_PUBLISH = new Timer("filterPublish");
+    static final Timer RANKED_SEARCH = new Timer("rankedSearch");
+    static final Timer PANTRY_SEARCH = new Timer("pantrySearch");
+    static final Timer MUTATION = new Timer("mutation");
+    static final Timer VIEW_UPDATE = new Timer("viewUpdate");
+    static final Timer CARD_ROW_UPDATE = new Timer("cardRowUpdate");
+    static final Timer IMAGE_LOAD = new Timer("imageLoad");
+    static final Timer DIALOG_OPEN = new Timer("dialogOpen");
+
+    // Recipes matched and recipes considered, summed over filter evaluations
+    static final Counter FILTER_MATCHED = new Counter("filterMatched");
+    static final Counter FILTER_TOTAL = new Counter("filterTotal");
+    static final Counter CARD_RENDERS = new Counter("cardRenders");
+    static final Counter IMAGE_CACHE_HITS = new Counter("imageCacheHits");
+    static final Counter IMAGE_CACHE_MISSES = new Counter("imageCacheMisses");
+    // Of the misses: served from the thumbnail store, or fetched and decoded
+    static final Counter THUMBNAIL_HITS = new Counter("thumbnailHits");
+    static final Counter IMAGE_FETCHES = new Counter("imageFetches");
+
+    private static final AtomicBoolean published = new AtomicBoolean();
+
+    private Metrics() {
+    }
+
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static final class Timer {
+        final String name;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name) {
+            this.name = name;
+            TIMERS.add(this);
+        }
+
+        void stop(long start) {
+            if (ENABLED) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static final class Counter {
+        final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+            COUNTERS.add(this);
+        }
+
+        void increment() {
+            if (ENABLED) {
+                value.increment();
+            }
+        }
+
+        void add(long amount) {
+            if (ENABLED) {
+                value.add(amount);
+            }
+        }
+
+        long get() {
+            return value.sum();
+        }
+    }
+
+    static double filterMatchRatio() {
+        return ratio(FILTER_MATCHED.get(), FILTER_TOTAL.get());
+    }
+
+    static double imageCacheHitRatio() {
+        long hits = IMAGE_CACHE_HITS.get();
+        return ratio(hits, hits + IMAGE_CACHE_MISSES.get());
+    }
+
+    static double thumbnailHitRatio() {
+        long hits = THUMBNAIL_HITS.get();
+        return ratio(hits, hits + IMAGE_FETCHES.get());
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : part / (double) whole;
+    }
+
+    // Registers the MBean and starts the periodic log, on a background thread so startup
+    // does not wait for the JMX machinery. Does nothing when metrics are off or on repeat calls.
+    static void publish() {
+        if (!ENABLED || !published.compareAndSet(false, true)) {
+            return;
+        }
+        long logSeconds = Long.getLong("recipes.metrics.log", 0);
+        Thread thread = new Thread(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new Bean(), new ObjectName("com.recipes.app:type=Metrics"));
+            } catch (JMException e) {
+                System.err.println("Could not register metrics MBean: " + e.getMessage());
+            }
+            while (logSeconds > 0) {
+                try {
+                    Thread.sleep(logSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                System.out.print(dump());
+            }
+        }, "recipe-metrics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Timer timer : TIMERS) {
+            if (timer.histogram.count() > 0) {
+                out.append(String.format("%-18s %s%n", timer.name, timer.histogram.summary()));
+            }
+        }
+        out.append(String.format("filter match ratio %.3f, image cache hit ratio %.3f, thumbnail hit ratio %.3f, card renders %,d%n",
+            filterMatchRatio(), imageCacheHitRatio(), thumbnailHitRatio(), CARD_RENDERS.get()));
+        return out.toString();
+    }
+
+    // Read-only attributes: <timer>Count, <timer>P50Micros, <timer>P99Micros, <timer>MaxMicros,
+    // every counter, and the three ratios; the dump operation returns the log text
+    private static class Bean implements DynamicMBean {
+        private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+        private final MBeanInfo info;
+
+        Bean() {
+            for (Timer timer : TIMERS) {
+                LatencyHistogram histogram = timer.histogram;
+                attributes.put(timer.name + "Count", histogram::count);
+                attributes.put(timer.name + "P50Micros", () -> histogram.percentile(0.50));
+                attributes.put(timer.name + "P99Micros", () -> histogram.percentile(0.99));
+                attributes.put(timer.name + "MaxMicros", histogram::max);
+            }
+            for (Counter counter : COUNTERS) {
+                attributes.put(counter.name, counter::get);
+            }
+            attributes.put("filterMatchRatio", Metrics::filterMatchRatio);
+            attributes.put("imageCacheHitRatio", Metrics::imageCacheHitRatio);
+            attributes.put("thumbnailHitRatio", Metrics::thumbnailHitRatio);
+
+            List<MBeanAttributeInfo> attributeInfo = new ArrayList<>();
+            for (String name : attributes.keySet()) {
+                String type = name.endsWith("Ratio") ? "double" : "long";
+                attributeInfo.add(new MBeanAttributeInfo(name, type, name, true, false, false));
+            }
+            MBeanOperationInfo dump = new MBeanOperationInfo("dump", "Current metrics as text",
+                new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO);
+            info = new MBeanInfo(Metrics.class.getName(), "Recipe manager runtime metrics",
+                attributeInfo.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {dump}, null);
+        }
+
+        @Override
+        public Object getAttribute(String name) throws AttributeNotFoundException {
+            Supplier<Object> attribute = attributes.get(name);
+            if (attribute == null) {
+                throw new AttributeNotFoundException(name);
+            }
+            return attribute.get();
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                Supplier<Object> attribute = attributes.get(name);
+                if (attribute != null) {
+                    list.add(new Attribute(name, attribute.get()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList list) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if (action.equals("dump")) {
+                return dump();
+            }
+            throw new ReflectionException(new NoSuchMethodException(action));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Inverted index from normalized ingredient name to the slots of the recipes that need
+// it. Optional ingredients ("salt to taste") are not indexed, so they never count as
+// missing. Postings hold DocIds, so deletes and edits never shift them; each doc id
+// keeps its ingredient ids for its required count.
+//
+// A pantry query only walks the posting lists of the pantry's ingredients, counting hits
+// per slot; recipes sharing nothing with the pantry are never looked at.
+class PantryIndex {
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<SearchIndex.SlotList> postings = new ArrayList<>();
+
+    private final DocIds docs = new DocIds();
+    private int[][] docIngredients = new int[16][];
+
+    void add(int slot, Recipe recipe) {
+        index(docs.add(slot), recipe);
+    }
+
+    void update(int slot, Recipe recipe) {
+        index(docs.replace(slot), recipe);
+        compactIfNeeded();
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        docs.remove(slot);
+        compactIfNeeded();
+    }
+
+    private void index(int doc, Recipe recipe) {
+        ensureCapacity(doc + 1);
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (IngredientLine line : IngredientLine.parseAll(recipe.scanIngredients())) {
+            if (!line.optional) {
+                ids.add(ingredientId(line.name));
+            }
+        }
+        int[] required = new int[ids.size()];
+        int i = 0;
+        for (int id : ids) {
+            required[i++] = id;
+            postings.get(id).add(doc);
+        }
+        docIngredients[doc] = required;
+    }
+
+    private void compactIfNeeded() {
+        if (!docs.shouldCompact()) {
+            return;
+        }
+        int count = docs.count();
+        int[] renumbered = docs.compact();
+        for (SearchIndex.SlotList list : postings) {
+            list.renumber(renumbered);
+        }
+        for (int doc = 0; doc < count; doc++) {
+            if (renumbered[doc] != DocIds.DEAD) {
+                docIngredients[renumbered[doc]] = docIngredients[doc];
+            }
+        }
+        Arrays.fill(docIngredients, docs.count(), count, null);
+    }
+
+    // The recipes needing at least one pantry ingredient, up to limit of them, by share of
+    // their ingredients the pantry covers, then by fewest missing, then in slot order
+    List<Match> match(Collection<String> pantry, int limit) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String item : pantry) {
+            Integer id = item == null ? null : ingredientIds.get(IngredientLine.normalizeName(item));
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Each pantry ingredient is counted once per recipe, so a count never exceeds its
+        // recipe's ingredient count
+        short[] counts = new short[docs.count()];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (int id : ids) {
+            SearchIndex.SlotList list = postings.get(id);
+            for (int i = 0; i < list.size; i++) {
+                int doc = list.slots[i];
+                if (counts[doc]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        Best best = new Best(limit);
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            int slot = docs.slotOf(doc);
+            if (slot != DocIds.DEAD) {
+                best.offer(slot, counts[doc], docIngredients[doc].length);
+            }
+        }
+        return best.drain();
+    }
+
+    private int ingredientId(String name) {
+        Integer id = ingredientIds.get(name);
+        if (id == null) {
+            id = postings.size();
+            ingredientIds.put(name, id);
+            postings.add(new SearchIndex.SlotList());
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docIngredients.length) {
+            docIngredients = Arrays.copyOf(docIngredients, Math.max(capacity, docIngredients.length * 2));
+        }
+    }
+
+    static class Match {
+        final int slot;
+        final int matched;
+        final int required;
+
+        Match(int slot, int matched, int required) {
+            this.slot = slot;
+            this.matched = matched;
+            this.required = required;
+        }
+    }
+
+    // Bounded min-heap keeping the best matches offered so far, worst at the root
+    private static class Best {
+        private final Match[] heap;
+        private int size;
+
+        Best(int limit) {
+            heap = new Match[limit];
+        }
+
+        void offer(int slot, int matched, int required) {
+            if (size == heap.length) {
+                // Checked before allocating: most offers to a full heap lose
+                if (worse(slot, matched, required, heap[0])) {
+                    return;
+                }
+                heap[0] = new Match(slot, matched, required);
+                siftDown(0);
+                return;
+            }
+            heap[size] = new Match(slot, matched, required);
+            int i = size++;
+            while (i > 0 && worse(heap[i], heap[(i - 1) / 2])) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        // Best first; empties the heap
+        List<Match> drain() {
+            Match[] sorted = new Match[size];
+            while (size > 0) {
+                sorted[size - 1] = heap[0];
+                heap[0] = heap[--size];
+                siftDown(0);
+            }
+            return new ArrayList<>(Arrays.asList(sorted));
+        }
+
+        private static boolean worse(Match a, Match b) {
+            return worse(a.slot, a.matched, a.required, b);
+        }
+
+        private static boolean worse(int slot, int matched, int required, Match b) {
+            // Cross-multiplied so equal fractions compare equal
+            long order = (long) matched * b.required - (long) b.matched * required;
+            if (order != 0) {
+                return order < 0;
+            }
+            int missing = required - matched;
+            int otherMissing = b.required - b.matched;
+            return missing != otherMissing ? missing > otherMissing : slot > b.slot;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!worse(heap[child], heap[i])) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            Match match = heap[a];
+            heap[a] = heap[b];
+            heap[b] = match;
+        }
+    }
+}
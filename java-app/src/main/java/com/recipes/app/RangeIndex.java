@@ -0,0 +1,203 @@
+package com.recipes.app;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Sorted index over one int attribute, keyed by slot. The distinct values are kept in a
+// sorted int[] with a bucket of the slots having each value alongside, so a range is
+// found by binary search and only the slots in it are touched. Buckets are unordered
+// and each slot knows its position in its bucket, so moving a slot between values or
+// positions is constant time; walking the index in value order sorts a bucket's slots
+// only when a query needs them in order.
+class RangeIndex {
+    private int[] keys = new int[16];
+    private Bucket[] buckets = new Bucket[16];
+    private int keyCount;
+
+    // Per slot: its value and its position in that value's bucket
+    private int[] values = new int[16];
+    private int[] positions = new int[16];
+    private int size;
+
+    void add(int slot, int value) {
+        if (slot >= values.length) {
+            int newLength = Math.max(slot + 1, values.length * 2);
+            values = Arrays.copyOf(values, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+        }
+        values[slot] = value;
+        append(bucketOf(value), slot);
+        size = Math.max(size, slot + 1);
+    }
+
+    void update(int slot, int value) {
+        if (values[slot] != value) {
+            take(slot);
+            values[slot] = value;
+            append(bucketOf(value), slot);
+        }
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        int last = size - 1;
+        take(slot);
+        if (slot != last) {
+            Bucket bucket = bucketOf(values[last]);
+            int position = positions[last];
+            bucket.slots[position] = slot;
+            bucket.ordered = false;
+            bucket.sorted = null;
+            values[slot] = values[last];
+            positions[slot] = position;
+        }
+        size = last;
+    }
+
+    // Null bounds are open; both are inclusive
+    boolean matches(int slot, Integer min, Integer max) {
+        int value = values[slot];
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    // Intersects the given slots with the range
+    void and(BitSet slots, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return;
+        }
+        int from = from(min);
+        int to = to(max);
+        int inside = 0;
+        for (int i = from; i < to; i++) {
+            inside += buckets[i].size;
+        }
+        // Whichever side of the range has fewer slots is the one set bit by bit
+        if (inside <= size - inside) {
+            BitSet range = new BitSet(size);
+            for (int i = from; i < to; i++) {
+                set(range, buckets[i]);
+            }
+            slots.and(range);
+        } else {
+            BitSet outside = new BitSet(size);
+            for (int i = 0; i < from; i++) {
+                set(outside, buckets[i]);
+            }
+            for (int i = to; i < keyCount; i++) {
+                set(outside, buckets[i]);
+            }
+            slots.andNot(outside);
+        }
+    }
+
+    // Up to limit of the allowed slots within the range, smallest value first
+    int[] ascending(BitSet allowed, Integer min, Integer max, int limit) {
+        int[] result = new int[Math.min(limit, allowed.cardinality())];
+        int count = 0;
+        for (int i = from(min), to = to(max); i < to && count < result.length; i++) {
+            Bucket bucket = buckets[i];
+            int[] slots = bucket.inOrder();
+            int bucketSize = bucket.ordered ? bucket.size : slots.length;
+            for (int j = 0; j < bucketSize && count < result.length; j++) {
+                if (allowed.get(slots[j])) {
+                    result[count++] = slots[j];
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    // Index of the first key >= min
+    private int from(Integer min) {
+        if (min == null) {
+            return 0;
+        }
+        int pos = Arrays.binarySearch(keys, 0, keyCount, min);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    // Index past the last key <= max
+    private int to(Integer max) {
+        if (max == null) {
+            return keyCount;
+        }
+        int pos = Arrays.binarySearch(keys, 0, keyCount, max);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    private Bucket bucketOf(int value) {
+        int pos = Arrays.binarySearch(keys, 0, keyCount, value);
+        if (pos >= 0) {
+            return buckets[pos];
+        }
+        // A value not seen before: rare, since recipes share few distinct values
+        pos = -pos - 1;
+        if (keyCount == keys.length) {
+            keys = Arrays.copyOf(keys, keyCount * 2);
+            buckets = Arrays.copyOf(buckets, keyCount * 2);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, keyCount - pos);
+        System.arraycopy(buckets, pos, buckets, pos + 1, keyCount - pos);
+        keys[pos] = value;
+        buckets[pos] = new Bucket();
+        keyCount++;
+        return buckets[pos];
+    }
+
+    private void append(Bucket bucket, int slot) {
+        if (bucket.size == bucket.slots.length) {
+            bucket.slots = Arrays.copyOf(bucket.slots, bucket.size * 2);
+        }
+        // New slots are the highest, so plain adds keep a bucket in order
+        bucket.ordered &= bucket.size == 0 || bucket.slots[bucket.size - 1] < slot;
+        bucket.sorted = null;
+        positions[slot] = bucket.size;
+        bucket.slots[bucket.size++] = slot;
+    }
+
+    // Takes the slot out of its bucket by moving the bucket's last slot into its place.
+    // Empty buckets are kept: the value is likely to come back.
+    private void take(int slot) {
+        Bucket bucket = bucketOf(values[slot]);
+        int position = positions[slot];
+        int moved = bucket.slots[--bucket.size];
+        if (position != bucket.size) {
+            bucket.slots[position] = moved;
+            positions[moved] = position;
+            bucket.ordered = false;
+        }
+        bucket.sorted = null;
+    }
+
+    private static void set(BitSet bits, Bucket bucket) {
+        for (int i = 0; i < bucket.size; i++) {
+            bits.set(bucket.slots[i]);
+        }
+    }
+
+    // The slots having one value, in no particular order
+    private static class Bucket {
+        int[] slots = new int[4];
+        int size;
+        // Whether slots is in increasing order, as long as only appends happened
+        boolean ordered = true;
+        // Sorted copy made by a query when slots is out of order; any change drops it.
+        // Queries only hold the read lock, so they never reorder slots itself.
+        volatile int[] sorted;
+
+        // The slots in increasing order: slots itself, with size entries, when ordered;
+        // otherwise the sorted copy, all of whose entries count
+        int[] inOrder() {
+            if (ordered) {
+                return slots;
+            }
+            int[] copy = sorted;
+            if (copy == null) {
+                copy = Arrays.copyOf(slots, size);
+                Arrays.sort(copy);
+                sorted = copy;
+            }
+            return copy;
+        }
+    }
+}
@@ -1,28 +1,74 @@
 package com.recipes.app;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
 
+// Recipes held by a RecipeManager are never changed in place: it stores edited copies,
+// and its view lists report the new version as an update of that position.
 public class Recipe {
-    private String id;
+    private static final int[] NO_RESTRICTIONS = new int[0];
+
+    // Id in RecipeId form; idText is only set for ids that are not canonical UUIDs
+    private final long idHigh;
+    private final long idLow;
+    private final String idText;
     private String title;
     private String ingredients;
     private String instructions;
-    private List<String> dietaryRestrictions;
-    private String category;
+    // Low-cardinality fields hold codes into these dictionaries: the owning store's, or
+    // the shared ones while the recipe is in no store
+    private ValueDictionary.Scope dictionaries = ValueDictionary.Scope.SHARED;
+    private int[] dietaryRestrictions = NO_RESTRICTIONS;
+    private int category = ValueDictionary.NONE;
     private int cookingTimeMinutes;
-    private String difficulty;
+    private int difficulty = ValueDictionary.NONE;
     private int servings;
     private boolean favorite;
     private String imageUrl;
 
+    // Position in the owning RecipeManager's list, maintained by the manager
+    int slot = -1;
+
+    // When set, ingredients and instructions are not held here but read on demand
+    private RecipeBodies bodies;
+    private int bodyIndex;
+
     public Recipe() {
-        this.id = UUID.randomUUID().toString();
-        this.dietaryRestrictions = new ArrayList<>();
+        this(RecipeId.random());
+    }
+
+    // Restores a recipe with a known id, e.g. when loading stored recipes
+    Recipe(String id) {
+        this(RecipeId.parse(id));
+    }
+
+    private Recipe(RecipeId id) {
+        this.idHigh = id.high;
+        this.idLow = id.low;
+        this.idText = id.text;
         this.favorite = false;
     }
 
+    private Recipe(Recipe other) {
+        this.idHigh = other.idHigh;
+        this.idLow = other.idLow;
+        this.idText = other.idText;
+        this.title = other.title;
+        this.ingredients = other.ingredients;
+        this.instructions = other.instructions;
+        this.dictionaries = other.dictionaries;
+        this.dietaryRestrictions = other.dietaryRestrictions;
+        this.category = other.category;
+        this.cookingTimeMinutes = other.cookingTimeMinutes;
+        this.difficulty = other.difficulty;
+        this.servings = other.servings;
+        this.favorite = other.favorite;
+        this.imageUrl = other.imageUrl;
+        this.bodies = other.bodies;
+        this.bodyIndex = other.bodyIndex;
+    }
+
     public Recipe(String title, String ingredients, String instructions) {
         this();
         this.title = title;
@@ -32,7 +78,20 @@ public class Recipe {
 
     // Existing getters and setters
     public String getId() {
-        return id;
+        return RecipeId.format(idHigh, idLow, idText);
+    }
+
+    int idHash() {
+        return RecipeId.hash(idHigh, idLow, idText);
+    }
+
+    boolean hasId(RecipeId id) {
+        return idText != null ? idText.equals(id.text) : id.text == null && idHigh == id.high && idLow == id.low;
+    }
+
+    boolean hasSameId(Recipe other) {
+        return idHigh == other.idHigh && idLow == other.idLow
+            && (idText != null ? idText.equals(other.idText) : other.idText == null);
     }
 
     public String getTitle() {
@@ -44,36 +103,82 @@ public class Recipe {
     }
 
     public String getIngredients() {
-        return ingredients;
+        RecipeBodies source = bodies;
+        return source != null ? source.getIngredients(bodyIndex) : ingredients;
     }
 
     public void setIngredients(String ingredients) {
+        detachBody();
         this.ingredients = ingredients;
     }
 
     public String getInstructions() {
-        return instructions;
+        RecipeBodies source = bodies;
+        return source != null ? source.getInstructions(bodyIndex) : instructions;
     }
 
     public void setInstructions(String instructions) {
+        detachBody();
         this.instructions = instructions;
     }
 
+    // Same text as the getters, but a stored body is decoded without going through the
+    // body cache; for indexing and scans that touch each recipe once
+    String scanIngredients() {
+        RecipeBodies source = bodies;
+        return source != null ? source.readIngredients(bodyIndex) : ingredients;
+    }
+
+    String scanInstructions() {
+        RecipeBodies source = bodies;
+        return source != null ? source.readInstructions(bodyIndex) : instructions;
+    }
+
+    // Same id and contents, not attached to any manager
+    Recipe copy() {
+        return new Recipe(this);
+    }
+
+    // True when title, ingredients and instructions are the very same text, as in a copy
+    // whose text was not edited; never loads a stored body
+    boolean sharesTextWith(Recipe other) {
+        return title == other.title && ingredients == other.ingredients && instructions == other.instructions
+            && bodies == other.bodies && bodyIndex == other.bodyIndex;
+    }
+
+    void setBodySource(RecipeBodies bodies, int index) {
+        this.bodies = bodies;
+        this.bodyIndex = index;
+        this.ingredients = null;
+        this.instructions = null;
+    }
+
+    // Copies the stored body into this object before it is edited
+    private void detachBody() {
+        RecipeBodies source = bodies;
+        if (source != null) {
+            ingredients = source.getIngredients(bodyIndex);
+            instructions = source.getInstructions(bodyIndex);
+            bodies = null;
+        }
+    }
+
+    // Live view; changes write through to this recipe
     public List<String> getDietaryRestrictions() {
-        return dietaryRestrictions;
+        return new RestrictionList();
     }
 
     public void setDietaryRestrictions(List<String> dietaryRestrictions) {
-        this.dietaryRestrictions = dietaryRestrictions;
+        this.dietaryRestrictions = encode(dietaryRestrictions);
     }
 
     // New getters and setters
     public String getCategory() {
-        return category;
+        return dictionaries.categories.decode(category);
     }
 
     public void setCategory(String category) {
-        this.category = category;
+        this.category = dictionaries.categories.encode(category);
     }
 
     public int getCookingTimeMinutes() {
@@ -85,11 +190,11 @@ public class Recipe {
     }
 
     public String getDifficulty() {
-        return difficulty;
+        return dictionaries.difficulties.decode(difficulty);
     }
 
     public void setDifficulty(String difficulty) {
-        this.difficulty = difficulty;
+        this.difficulty = dictionaries.difficulties.encode(difficulty);
     }
 
     public int getServings() {
@@ -117,13 +222,14 @@ public class Recipe {
     }
 
     public void addDietaryRestriction(String restriction) {
-        if (!dietaryRestrictions.contains(restriction)) {
-            dietaryRestrictions.add(restriction);
+        List<String> restrictions = getDietaryRestrictions();
+        if (!restrictions.contains(restriction)) {
+            restrictions.add(restriction);
         }
     }
 
     public void removeDietaryRestriction(String restriction) {
-        dietaryRestrictions.remove(restriction);
+        getDietaryRestrictions().remove(restriction);
     }
 
     // Formatted time string for display
@@ -139,13 +245,101 @@ public class Recipe {
     @Override
     public String toString() {
         return "Recipe{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", title='" + title + '\'' +
-                ", category='" + category + '\'' +
+                ", category='" + getCategory() + '\'' +
                 ", cookingTime='" + getFormattedCookingTime() + '\'' +
-                ", difficulty='" + difficulty + '\'' +
+                ", difficulty='" + getDifficulty() + '\'' +
                 ", servings=" + servings +
-                ", dietaryRestrictions=" + dietaryRestrictions +
+                ", dietaryRestrictions=" + getDietaryRestrictions() +
                 '}';
     }
+
+    // Re-encodes the codes into the given dictionaries. A store does this for each recipe
+    // it takes in; loaders do it on a new recipe, before setting any field, to encode
+    // straight into the store's dictionaries.
+    void useDictionaries(ValueDictionary.Scope scope) {
+        ValueDictionary.Scope old = dictionaries;
+        if (scope == old) {
+            return;
+        }
+        int[] codes = dietaryRestrictions;
+        if (codes.length > 0) {
+            int[] recoded = new int[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                recoded[i] = scope.restrictions.encode(old.restrictions.decode(codes[i]));
+            }
+            dietaryRestrictions = recoded;
+        }
+        category = scope.categories.encode(old.categories.decode(category));
+        difficulty = scope.difficulties.encode(old.difficulties.decode(difficulty));
+        dictionaries = scope;
+    }
+
+    private int[] encode(Collection<String> restrictions) {
+        if (restrictions == null || restrictions.isEmpty()) {
+            return NO_RESTRICTIONS;
+        }
+        int[] codes = new int[restrictions.size()];
+        int i = 0;
+        for (String restriction : restrictions) {
+            codes[i++] = dictionaries.restrictions.encode(restriction);
+        }
+        return codes;
+    }
+
+    // List view over the restriction codes. Every change replaces the array, so a reader
+    // on another thread always sees a complete one.
+    private class RestrictionList extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            return dictionaries.restrictions.decode(dietaryRestrictions[index]);
+        }
+
+        @Override
+        public int size() {
+            return dietaryRestrictions.length;
+        }
+
+        @Override
+        public String set(int index, String restriction) {
+            String previous = get(index);
+            int[] codes = dietaryRestrictions.clone();
+            codes[index] = dictionaries.restrictions.encode(restriction);
+            dietaryRestrictions = codes;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, String restriction) {
+            int[] old = dietaryRestrictions;
+            if (index < 0 || index > old.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + old.length);
+            }
+            int[] codes = new int[old.length + 1];
+            System.arraycopy(old, 0, codes, 0, index);
+            codes[index] = dictionaries.restrictions.encode(restriction);
+            System.arraycopy(old, index, codes, index + 1, old.length - index);
+            dietaryRestrictions = codes;
+            modCount++;
+        }
+
+        @Override
+        public String remove(int index) {
+            String previous = get(index);
+            int[] old = dietaryRestrictions;
+            int[] codes = old.length == 1 ? NO_RESTRICTIONS : new int[old.length - 1];
+            System.arraycopy(old, 0, codes, 0, index);
+            System.arraycopy(old, index + 1, codes, index, old.length - index - 1);
+            dietaryRestrictions = codes;
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            dietaryRestrictions = NO_RESTRICTIONS;
+            modCount++;
+        }
+    }
 }
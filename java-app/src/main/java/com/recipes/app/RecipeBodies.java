@@ -0,0 +1,51 @@
+package com.recipes.app;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// On-demand source for recipe ingredient and instruction text stored in a CatalogFile.
+// Recipes loaded from a catalog keep only their summary fields in memory and read the
+// bodies through here. A small LRU keeps bodies that were displayed or edited decoded;
+// indexing and search verification read through readIngredients and readInstructions,
+// which decode straight from the mapping, so a scan neither evicts those nor queues
+// on the cache lock.
+class RecipeBodies {
+    private static final int CACHE_SIZE = 256;
+
+    private final CatalogFile catalog;
+    private final Map<Integer, String[]> cache = new LinkedHashMap<Integer, String[]>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    RecipeBodies(CatalogFile catalog) {
+        this.catalog = catalog;
+    }
+
+    String getIngredients(int index) {
+        return body(index)[0];
+    }
+
+    String getInstructions(int index) {
+        return body(index)[1];
+    }
+
+    String readIngredients(int index) {
+        return catalog.getIngredients(index);
+    }
+
+    String readInstructions(int index) {
+        return catalog.getInstructions(index);
+    }
+
+    private synchronized String[] body(int index) {
+        String[] body = cache.get(index);
+        if (body == null) {
+            body = new String[] { catalog.getIngredients(index), catalog.getInstructions(index) };
+            cache.put(index, body);
+        }
+        return body;
+    }
+}
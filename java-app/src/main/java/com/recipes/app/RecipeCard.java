@@ -0,0 +1,96 @@
+package com.recipes.app;
+
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import java.util.function.Consumer;
+
+// Reusable card node; the grid rebinds it to another recipe instead of rebuilding it.
+class RecipeCard extends VBox {
+    private final ImageService imageService;
+    private final ImageView imageView = new ImageView();
+    private final Label titleLabel = new Label();
+    private final Label favoriteLabel = new Label();
+    private final Label categoryLabel = new Label();
+    private final Label timeLabel = new Label();
+    private final Label difficultyLabel = new Label();
+    private final Label servingsLabel = new Label();
+    private final Label dietaryLabel = new Label();
+
+    private Recipe recipe;
+    private String imageUrl;
+
+    RecipeCard(ImageService imageService, Consumer<Recipe> onToggleFavorite) {
+        super(10);
+        this.imageService = imageService;
+        getStyleClass().add("recipe-card");
+
+        // Recipe image
+        imageView.setFitWidth(ImageService.WIDTH);
+        imageView.setFitHeight(ImageService.HEIGHT);
+        imageView.setPreserveRatio(true);
+        imageView.managedProperty().bind(imageView.visibleProperty());
+
+        // Title with favorite star
+        HBox titleBox = new HBox(10);
+        titleLabel.getStyleClass().add("title");
+        favoriteLabel.setOnMouseClicked(e -> {
+            if (recipe != null) {
+                onToggleFavorite.accept(recipe);
+            }
+        });
+        titleBox.getChildren().addAll(titleLabel, favoriteLabel);
+
+        // Details
+        VBox details = new VBox(5);
+        details.getStyleClass().add("details");
+        details.getChildren().addAll(categoryLabel, timeLabel, difficultyLabel, servingsLabel, dietaryLabel);
+
+        getChildren().addAll(imageView, titleBox, details);
+    }
+
+    // Null detaches the card, e.g. when its slot in the row is unused
+    void setRecipe(Recipe recipe) {
+        if (this.recipe == recipe) {
+            return;
+        }
+        this.recipe = recipe;
+        if (recipe != null) {
+            render();
+        }
+    }
+
+    private void render() {
+        Metrics.CARD_RENDERS.increment();
+        titleLabel.setText(recipe.getTitle());
+        favoriteLabel.setText(recipe.isFavorite() ? "★" : "☆");
+        categoryLabel.setText("Category: " + recipe.getCategory());
+        timeLabel.setText("Time: " + recipe.getFormattedCookingTime());
+        difficultyLabel.setText("Difficulty: " + recipe.getDifficulty());
+        servingsLabel.setText("Servings: " + recipe.getServings());
+        dietaryLabel.setText("Dietary: " + String.join(", ", recipe.getDietaryRestrictions()));
+        setImageUrl(recipe.getImageUrl());
+    }
+
+    private void setImageUrl(String url) {
+        if (url != null && url.equals(imageUrl)) {
+            return;
+        }
+        imageUrl = url;
+        if (url == null) {
+            imageView.setImage(null);
+            imageView.setVisible(false);
+            return;
+        }
+        imageView.setImage(imageService.getPlaceholder());
+        imageView.setVisible(true);
+        imageService.load(url, image -> {
+            // The card may have been recycled for another recipe meanwhile
+            if (url.equals(imageUrl)) {
+                imageView.setImage(image);
+                imageView.setVisible(image != null);
+            }
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.recipes.app;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.scene.layout.HBox;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Virtualized card grid: a ListView whose rows each show up to 'columns' cards.
+// Only the visible rows have cells, and cells and their cards are recycled on scroll.
+public class RecipeCardGrid extends ListView<Integer> {
+    private static final double CARD_WIDTH = ImageService.WIDTH;
+    private static final double GAP = 20;
+    // Horizontal cell padding plus room for the vertical scroll bar
+    private static final double INSETS = 2 * GAP + 20;
+    private static final long IMAGE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private final RowList rows = new RowList();
+    private final ImageService imageService = new ImageService(IMAGE_CACHE_BYTES, openThumbnailStore());
+    private final ListChangeListener<Recipe> recipesListener = this::onRecipesChanged;
+    private ObservableList<Recipe> recipes = FXCollections.emptyObservableList();
+    private Consumer<Recipe> onToggleFavorite = recipe -> { };
+    private int columns = 1;
+
+    public RecipeCardGrid() {
+        getStyleClass().add("recipe-card-grid");
+        setFocusTraversable(false);
+        setItems(rows);
+        setCellFactory(list -> new RowCell());
+        widthProperty().addListener((obs, oldWidth, newWidth) -> updateColumns());
+    }
+
+    public void setRecipes(ObservableList<Recipe> recipes) {
+        this.recipes.removeListener(recipesListener);
+        this.recipes = recipes;
+        recipes.addListener(recipesListener);
+        refreshRows(0, Integer.MAX_VALUE);
+    }
+
+    ImageService getImageService() {
+        return imageService;
+    }
+
+    public void setOnToggleFavorite(Consumer<Recipe> onToggleFavorite) {
+        this.onToggleFavorite = onToggleFavorite;
+    }
+
+    private static ThumbnailStore openThumbnailStore() {
+        try {
+            return new ThumbnailStore(AppPaths.dataDirectory().resolve("thumbnails.pack"));
+        } catch (IOException e) {
+            System.err.println("Thumbnail store unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private int rowCount() {
+        return (recipes.size() + columns - 1) / columns;
+    }
+
+    private void updateColumns() {
+        int newColumns = Math.max(1, (int) ((getWidth() - INSETS + GAP) / (CARD_WIDTH + GAP)));
+        if (newColumns != columns) {
+            columns = newColumns;
+            refreshRows(0, Integer.MAX_VALUE);
+        }
+    }
+
+    // Maps a recipe list change onto the rows it touches. Rebinding a row only redraws
+    // the cards whose recipe actually changed.
+    private void onRecipesChanged(ListChangeListener.Change<? extends Recipe> c) {
+        int from = Integer.MAX_VALUE;
+        int to = 0;
+        while (c.next()) {
+            from = Math.min(from, c.getFrom());
+            if (c.wasUpdated()) {
+                to = Math.max(to, c.getTo());
+            } else if (c.getAddedSize() == c.getRemovedSize() && !c.wasPermutated()) {
+                to = Math.max(to, c.getFrom() + Math.max(c.getAddedSize(), 1));
+            } else {
+                // Everything after an insertion or removal shifts
+                to = Integer.MAX_VALUE;
+            }
+        }
+        if (from == Integer.MAX_VALUE) {
+            return;
+        }
+        int toRow = to == Integer.MAX_VALUE ? Integer.MAX_VALUE : (to - 1) / columns + 1;
+        refreshRows(from / columns, toRow);
+    }
+
+    // Resizes the row list and reports rows [fromRow, toRow) as updated, but only those
+    // on screen: a row index names no recipes of its own, and a cell that scrolls in is
+    // rebound anyway. So an insert near the top of a large catalog costs a screenful of
+    // updates, not one per shifted row.
+    private void refreshRows(int fromRow, int toRow) {
+        int firstVisible = 0;
+        int endVisible = 0;
+        Node flow = lookup(".virtual-flow");
+        if (flow instanceof VirtualFlow) {
+            IndexedCell<?> first = ((VirtualFlow<?>) flow).getFirstVisibleCell();
+            IndexedCell<?> last = ((VirtualFlow<?>) flow).getLastVisibleCell();
+            if (first != null && last != null) {
+                firstVisible = first.getIndex();
+                endVisible = last.getIndex() + 1;
+            }
+        }
+        rows.resize(rowCount(), Math.max(fromRow, firstVisible), Math.min(toRow, endVisible));
+    }
+
+    private class RowCell extends ListCell<Integer> {
+        private final HBox box = new HBox(GAP);
+        private final List<RecipeCard> cards = new ArrayList<>();
+
+        RowCell() {
+            getStyleClass().add("recipe-card-row");
+        }
+
+        // The row index alone does not say whether its recipes changed, so always rebind
+        @Override
+        protected boolean isItemChanged(Integer oldItem, Integer newItem) {
+            return true;
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            long start = Metrics.start();
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                for (RecipeCard card : cards) {
+                    card.setRecipe(null);
+                }
+                setGraphic(null);
+                Metrics.CARD_ROW_UPDATE.stop(start);
+                return;
+            }
+            while (cards.size() < columns) {
+                RecipeCard card = new RecipeCard(imageService, recipe -> onToggleFavorite.accept(recipe));
+                card.managedProperty().bind(card.visibleProperty());
+                cards.add(card);
+                box.getChildren().add(card);
+            }
+            for (int i = 0; i < cards.size(); i++) {
+                int index = row * columns + i;
+                RecipeCard card = cards.get(i);
+                boolean used = i < columns && index < recipes.size();
+                card.setRecipe(used ? recipes.get(index) : null);
+                card.setVisible(used);
+            }
+            setGraphic(box);
+            Metrics.CARD_ROW_UPDATE.stop(start);
+        }
+    }
+
+    // Row indices 0..size-1, generated on demand so memory does not grow with the catalog
+    private static class RowList extends ObservableListBase<Integer> {
+        private int size;
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // Resizes to newSize and reports rows [dirtyFrom, dirtyTo) that remain as updated
+        void resize(int newSize, int dirtyFrom, int dirtyTo) {
+            int oldSize = size;
+            int common = Math.min(oldSize, newSize);
+            size = newSize;
+            beginChange();
+            for (int row = dirtyFrom; row < Math.min(dirtyTo, common); row++) {
+                nextUpdate(row);
+            }
+            if (newSize > oldSize) {
+                nextAdd(oldSize, newSize);
+            } else if (newSize < oldSize) {
+                nextRemove(newSize, new AbstractList<Integer>() {
+                    @Override
+                    public Integer get(int index) {
+                        return newSize + index;
+                    }
+
+                    @Override
+                    public int size() {
+                        return oldSize - newSize;
+                    }
+                });
+            }
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.recipes.app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Binary form of a Recipe, shared by the journal and snapshots
+final class RecipeCodec {
+    private RecipeCodec() {
+    }
+
+    static void write(DataOutput out, Recipe recipe) throws IOException {
+        writeString(out, recipe.getId());
+        writeString(out, recipe.getTitle());
+        writeString(out, recipe.getIngredients());
+        writeString(out, recipe.getInstructions());
+        writeString(out, recipe.getCategory());
+        writeString(out, recipe.getDifficulty());
+        writeString(out, recipe.getImageUrl());
+        out.writeInt(recipe.getCookingTimeMinutes());
+        out.writeInt(recipe.getServings());
+        out.writeBoolean(recipe.isFavorite());
+        // Copy first: the list may be edited by the UI while a snapshot is written
+        List<String> restrictions = new ArrayList<>(recipe.getDietaryRestrictions());
+        out.writeInt(restrictions.size());
+        for (String restriction : restrictions) {
+            writeString(out, restriction);
+        }
+    }
+
+    static Recipe read(DataInput in, ValueDictionary.Scope dictionaries) throws IOException {
+        Recipe recipe = new Recipe(readString(in));
+        recipe.useDictionaries(dictionaries);
+        recipe.setTitle(readString(in));
+        recipe.setIngredients(readString(in));
+        recipe.setInstructions(readString(in));
+        recipe.setCategory(readString(in));
+        recipe.setDifficulty(readString(in));
+        recipe.setImageUrl(readString(in));
+        recipe.setCookingTimeMinutes(in.readInt());
+        recipe.setServings(in.readInt());
+        recipe.setFavorite(in.readBoolean());
+        int restrictions = in.readInt();
+        for (int i = 0; i < restrictions; i++) {
+            recipe.addDietaryRestriction(readString(in));
+        }
+        return recipe;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
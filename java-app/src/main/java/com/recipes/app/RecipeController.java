@@ -1,23 +1,34 @@
 package com.recipes.app;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.image.ImageView;
-import javafx.scene.image.Image;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.concurrent.Task;
 import javafx.geometry.Pos;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import javafx.print.*;
 import javafx.stage.FileChooser;
 import java.io.File;
+import java.io.IOException;
 import java.awt.Desktop;
 
 public class RecipeController implements Initializable {
@@ -41,11 +52,25 @@ public class RecipeController implements Initializable {
     @FXML private ToggleButton toggleViewButton;
     
     @FXML private VBox tableViewContainer;
-    @FXML private ScrollPane cardViewContainer;
-    @FXML private FlowPane recipeCardContainer;
-
-    private final RecipeManager recipeManager = new RecipeManager();
+    @FXML private StackPane centerContainer;
+    @FXML private Label statusLabel;
+
+    // Catalog changes may come from any thread; the lists shown here follow on the FX thread
+    private final RecipeManager recipeManager = new RecipeManager(task -> {
+        if (Platform.isFxApplicationThread()) {
+            task.run();
+        } else {
+            Platform.runLater(task);
+        }
+    });
     private final RecipeFilter filter = new RecipeFilter();
+    private final FilterService filterService =
+        new FilterService(recipeManager, this::onFilterApplied, this::onFilterFailed);
+    private RecipeJournal journal;
+    // Facet counts for the published filter, refreshed whenever it or the catalog changes
+    private final ObjectProperty<RecipeManager.FacetCounts> facets = new SimpleObjectProperty<>();
+    // Built on first switch to cards, so startup only pays for the table
+    private RecipeCardGrid cardViewContainer;
 
     private static final ObservableList<String> CATEGORIES = FXCollections.observableArrayList(
         "Breakfast", "Lunch", "Dinner", "Dessert", "Snack", "Appetizer"
@@ -59,15 +84,17 @@ public class RecipeController implements Initializable {
     public void initialize(URL url, ResourceBundle rb) {
         setupTableColumns();
         setupComboBoxes();
+        setupFacets();
         setupSearchField();
         setupToggleView();
-        loadSampleData();
+        loadRecipes();
         setupEventHandlers();
     }
 
     private void setupTableColumns() {
-        favoriteColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().isFavorite() ? "★" : "☆"));
+        // An edited recipe is a new object in its row, so the row redraws with fresh values
+        favoriteColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(cellData.getValue().isFavorite() ? "★" : "☆"));
         favoriteColumn.setCellFactory(col -> new TableCell<Recipe, String>() {
             @Override
             protected void updateItem(String item, boolean empty) {
@@ -79,45 +106,115 @@ public class RecipeController implements Initializable {
                     setOnMouseClicked(event -> {
                         Recipe recipe = getTableView().getItems().get(getIndex());
                         recipeManager.toggleFavorite(recipe.getId());
-                        getTableView().refresh();
-                        updateCardView();
                     });
                 }
             }
         });
 
-        titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
-        categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
-        cookingTimeColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getFormattedCookingTime()));
-        difficultyColumn.setCellValueFactory(new PropertyValueFactory<>("difficulty"));
-        servingsColumn.setCellValueFactory(new PropertyValueFactory<>("servings"));
-        restrictionsColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(String.join(", ", cellData.getValue().getDietaryRestrictions())));
+        titleColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getTitle()));
+        categoryColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getCategory()));
+        cookingTimeColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(cellData.getValue().getFormattedCookingTime()));
+        difficultyColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(cellData.getValue().getDifficulty()));
+        servingsColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getServings()));
+        restrictionsColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(String.join(", ", cellData.getValue().getDietaryRestrictions())));
 
         recipeTable.setItems(recipeManager.getFilteredRecipes());
     }
 
+    // The grid brings its image cache, decoder threads and thumbnail store with it
+    private RecipeCardGrid cardView() {
+        if (cardViewContainer == null) {
+            cardViewContainer = new RecipeCardGrid();
+            cardViewContainer.setRecipes(recipeManager.getFilteredRecipes());
+            cardViewContainer.setOnToggleFavorite(recipe -> recipeManager.toggleFavorite(recipe.getId()));
+            cardViewContainer.setVisible(false);
+            centerContainer.getChildren().add(cardViewContainer);
+            cardViewContainer.getImageService().warmUp(imageUrls());
+        }
+        return cardViewContainer;
+    }
+
+    private List<String> imageUrls() {
+        List<String> imageUrls = new ArrayList<>();
+        for (Recipe recipe : recipeManager.snapshot()) {
+            imageUrls.add(recipe.getImageUrl());
+        }
+        return imageUrls;
+    }
+
     private void setupComboBoxes() {
         categoryComboBox.setItems(CATEGORIES);
         difficultyComboBox.setItems(DIFFICULTIES);
     }
 
+    // Shows next to each filter choice how many recipes it would match
+    private void setupFacets() {
+        categoryComboBox.setCellFactory(list -> new FacetCell(RecipeManager.FacetCounts::getCategoryCounts));
+        difficultyComboBox.setCellFactory(list -> new FacetCell(RecipeManager.FacetCounts::getDifficultyCounts));
+        facets.addListener((obs, oldVal, newVal) -> {
+            Map<String, Integer> restrictions = newVal.getRestrictionCounts();
+            for (CheckBox checkBox : Arrays.asList(veganCheckBox, vegetarianCheckBox, glutenFreeCheckBox, dairyFreeCheckBox)) {
+                String restriction = (String) checkBox.getUserData();
+                checkBox.setText(String.format("%s (%d)", restriction, restrictions.getOrDefault(restriction, 0)));
+            }
+            favoritesOnlyCheckBox.setText(String.format("Favorites Only (%d)", newVal.getFavoriteCount()));
+        });
+        veganCheckBox.setUserData("Vegan");
+        vegetarianCheckBox.setUserData("Vegetarian");
+        glutenFreeCheckBox.setUserData("Gluten-Free");
+        dairyFreeCheckBox.setUserData("Dairy-Free");
+        // Catalog changes reach the view as list changes; filter changes come through onFilterApplied
+        recipeManager.getAllRecipes().addListener((ListChangeListener<Recipe>) change -> refreshFacets());
+        refreshFacets();
+    }
+
+    private void refreshFacets() {
+        facets.set(recipeManager.getFacetCounts());
+    }
+
+    private class FacetCell extends ListCell<String> {
+        private final Function<RecipeManager.FacetCounts, Map<String, Integer>> counts;
+        private final InvalidationListener facetsListener = observable -> render();
+
+        FacetCell(Function<RecipeManager.FacetCounts, Map<String, Integer>> counts) {
+            this.counts = counts;
+            // Weak, so cells the combo box discards do not stay reachable from facets
+            facets.addListener(new WeakInvalidationListener(facetsListener));
+        }
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            render();
+        }
+
+        private void render() {
+            String item = getItem();
+            if (isEmpty() || item == null) {
+                setText(null);
+            } else {
+                setText(String.format("%s (%d)", item, counts.apply(facets.get()).getOrDefault(item, 0)));
+            }
+        }
+    }
+
     private void setupSearchField() {
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             filter.setSearchText(newValue);
-            applyFilters();
+            filterService.submit(filter);
         });
     }
 
     private void setupToggleView() {
         toggleViewButton.selectedProperty().addListener((obs, oldVal, newVal) -> {
             tableViewContainer.setVisible(!newVal);
-            cardViewContainer.setVisible(newVal);
-            toggleViewButton.setText(newVal ? "Switch to Table" : "Switch to Cards");
-            if (newVal) {
-                updateCardView();
+            if (newVal || cardViewContainer != null) {
+                cardView().setVisible(newVal);
             }
+            toggleViewButton.setText(newVal ? "Switch to Table" : "Switch to Cards");
         });
     }
 
@@ -128,56 +225,6 @@ public class RecipeController implements Initializable {
         });
     }
 
-    private void updateCardView() {
-        recipeCardContainer.getChildren().clear();
-        for (Recipe recipe : recipeManager.getFilteredRecipes()) {
-            recipeCardContainer.getChildren().add(createRecipeCard(recipe));
-        }
-    }
-
-    private VBox createRecipeCard(Recipe recipe) {
-        VBox card = new VBox(10);
-        card.getStyleClass().add("recipe-card");
-
-        // Recipe image
-        if (recipe.getImageUrl() != null) {
-            try {
-                ImageView imageView = new ImageView(new Image(recipe.getImageUrl()));
-                imageView.setFitWidth(300);
-                imageView.setFitHeight(200);
-                imageView.setPreserveRatio(true);
-                card.getChildren().add(imageView);
-            } catch (Exception e) {
-                // Handle missing image
-            }
-        }
-
-        // Title with favorite star
-        HBox titleBox = new HBox(10);
-        Label titleLabel = new Label(recipe.getTitle());
-        titleLabel.getStyleClass().add("title");
-        Label favoriteLabel = new Label(recipe.isFavorite() ? "★" : "☆");
-        favoriteLabel.setOnMouseClicked(e -> {
-            recipeManager.toggleFavorite(recipe.getId());
-            updateCardView();
-        });
-        titleBox.getChildren().addAll(titleLabel, favoriteLabel);
-        
-        // Details
-        VBox details = new VBox(5);
-        details.getStyleClass().add("details");
-        details.getChildren().addAll(
-            new Label("Category: " + recipe.getCategory()),
-            new Label("Time: " + recipe.getFormattedCookingTime()),
-            new Label("Difficulty: " + recipe.getDifficulty()),
-            new Label("Servings: " + recipe.getServings()),
-            new Label("Dietary: " + String.join(", ", recipe.getDietaryRestrictions()))
-        );
-
-        card.getChildren().addAll(titleBox, details);
-        return card;
-    }
-
     @FXML
     private void handleFilter() {
         filter.getDietaryRestrictions().clear();
@@ -213,10 +260,20 @@ public class RecipeController implements Initializable {
     }
 
     private void applyFilters() {
-        recipeManager.setFilter(filter);
-        if (toggleViewButton.isSelected()) {
-            updateCardView();
-        }
+        filterService.submitNow(filter);
+    }
+
+    private void onFilterApplied() {
+        refreshFacets();
+        statusLabel.setText(String.format("%d of %d recipes (%.1f ms)",
+            recipeManager.getFilteredRecipes().size(), recipeManager.getAllRecipes().size(),
+            filterService.latencyMillisProperty().get()));
+    }
+
+    // The list keeps showing the previous result
+    private void onFilterFailed(Throwable error) {
+        System.err.println("Filtering failed: " + error);
+        statusLabel.setText("Filtering failed: " + error.getMessage());
     }
 
     @FXML
@@ -224,9 +281,6 @@ public class RecipeController implements Initializable {
         Dialog<Recipe> dialog = createRecipeDialog("Add New Recipe", null);
         dialog.showAndWait().ifPresent(recipe -> {
             recipeManager.addRecipe(recipe);
-            if (toggleViewButton.isSelected()) {
-                updateCardView();
-            }
         });
     }
 
@@ -238,12 +292,15 @@ public class RecipeController implements Initializable {
             return;
         }
 
-        Dialog<Recipe> dialog = createRecipeDialog("Edit Recipe", selectedRecipe);
+        // Stored recipes are never edited in place; the dialog edits a copy of the current version
+        Recipe current = recipeManager.getRecipe(selectedRecipe.getId());
+        if (current == null) {
+            showAlert("Recipe Not Found", "The selected recipe no longer exists.");
+            return;
+        }
+        Dialog<Recipe> dialog = createRecipeDialog("Edit Recipe", current.copy());
         dialog.showAndWait().ifPresent(recipe -> {
             recipeManager.updateRecipe(recipe);
-            if (toggleViewButton.isSelected()) {
-                updateCardView();
-            }
         });
     }
 
@@ -263,13 +320,97 @@ public class RecipeController implements Initializable {
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 recipeManager.deleteRecipe(selectedRecipe.getId());
-                if (toggleViewButton.isSelected()) {
-                    updateCardView();
-                }
             }
         });
     }
 
+    @FXML
+    private void handleImportRecipes() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Recipes");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Recipe files", "*.jsonl", "*.ndjson", "*.json", "*.csv"),
+            new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.ndjson", "*.json"),
+            new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File file = chooser.showOpenDialog(recipeTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        RecipeImporter importer = new RecipeImporter(recipeManager, ForkJoinPool.commonPool());
+        Task<RecipeImporter.Result> task = new Task<>() {
+            @Override
+            protected RecipeImporter.Result call() throws Exception {
+                return importer.importFile(file.toPath(), (bytesRead, totalBytes, imported, rate) -> {
+                    updateProgress(bytesRead, totalBytes);
+                    updateMessage(String.format("Importing... %,d recipes (%,.0f/s)", imported, rate));
+                });
+            }
+        };
+        task.messageProperty().addListener((obs, oldVal, newVal) -> statusLabel.setText(newVal));
+        task.setOnSucceeded(e -> {
+            RecipeImporter.Result result = task.getValue();
+            StringBuilder summary = new StringBuilder(result.toString());
+            for (String error : result.errors.subList(0, Math.min(10, result.errors.size()))) {
+                summary.append('\n').append(error);
+            }
+            onFilterApplied();
+            showAlert("Import Complete", summary.toString());
+        });
+        task.setOnFailed(e -> {
+            onFilterApplied();
+            showAlert("Import Failed", String.valueOf(task.getException().getMessage()));
+        });
+        Thread thread = new Thread(task, "recipe-import-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @FXML
+    private void handleExportRecipes() {
+        ButtonType allButton = new ButtonType("All Recipes", ButtonBar.ButtonData.YES);
+        ButtonType viewButton = new ButtonType("Current View", ButtonBar.ButtonData.NO);
+        Alert scope = new Alert(Alert.AlertType.CONFIRMATION, "Which recipes do you want to export?",
+            allButton, viewButton, ButtonType.CANCEL);
+        scope.setTitle("Export Recipes");
+        scope.setHeaderText(null);
+        Optional<ButtonType> choice = scope.showAndWait();
+        if (!choice.isPresent() || choice.get() == ButtonType.CANCEL) {
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Recipes");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+            new FileChooser.ExtensionFilter("CSV", "*.csv"),
+            new FileChooser.ExtensionFilter("Text", "*.txt"));
+        File file = chooser.showSaveDialog(recipeTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        boolean all = choice.get() == allButton;
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                List<Recipe> recipes = all ? recipeManager.snapshot() : recipeManager.copyMatchingRecipes();
+                long start = System.nanoTime();
+                long written = RecipeExporter.export(recipes, file.toPath(), (done, total) -> {
+                    updateProgress(done, total);
+                    updateMessage(String.format("Exporting... %,d of %,d recipes", done, total));
+                });
+                updateMessage(String.format("Exported %,d recipes in %.1f s", written, (System.nanoTime() - start) / 1e9));
+                return written;
+            }
+        };
+        task.messageProperty().addListener((obs, oldVal, newVal) -> statusLabel.setText(newVal));
+        task.setOnFailed(e -> showAlert("Export Failed", String.valueOf(task.getException().getMessage())));
+        Thread thread = new Thread(task, "recipe-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @FXML
     private void handleShareRecipe() {
         Recipe selectedRecipe = recipeTable.getSelectionModel().getSelectedItem();
@@ -333,16 +474,7 @@ public class RecipeController implements Initializable {
     }
 
     private String formatRecipeForSharing(Recipe recipe) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Recipe: ").append(recipe.getTitle()).append("\n\n");
-        sb.append("Category: ").append(recipe.getCategory()).append("\n");
-        sb.append("Cooking Time: ").append(recipe.getFormattedCookingTime()).append("\n");
-        sb.append("Difficulty: ").append(recipe.getDifficulty()).append("\n");
-        sb.append("Servings: ").append(recipe.getServings()).append("\n");
-        sb.append("Dietary Restrictions: ").append(String.join(", ", recipe.getDietaryRestrictions())).append("\n\n");
-        sb.append("Ingredients:\n").append(recipe.getIngredients()).append("\n\n");
-        sb.append("Instructions:\n").append(recipe.getInstructions());
-        return sb.toString();
+        return RecipeExporter.appendShareText(new StringBuilder(), recipe).toString();
     }
 
     private VBox createPrintableRecipe(Recipe recipe) {
@@ -370,6 +502,7 @@ public class RecipeController implements Initializable {
     }
 
     private Dialog<Recipe> createRecipeDialog(String title, Recipe recipe) {
+        long opening = Metrics.start();
         Dialog<Recipe> dialog = new Dialog<>();
         dialog.setTitle(title);
         dialog.setHeaderText(null);
@@ -481,11 +614,74 @@ public class RecipeController implements Initializable {
             return null;
         });
 
+        // Time from the user's request until the dialog is on screen
+        dialog.setOnShown(e -> Metrics.DIALOG_OPEN.stop(opening));
         return dialog;
     }
 
-    private void loadSampleData() {
-        recipeManager.addSampleRecipes();
+    // Reads the stored catalog in the background so the window is usable immediately
+    private void loadRecipes() {
+        recipeTable.setPlaceholder(new Label("Loading recipes..."));
+        try {
+            journal = new RecipeJournal(AppPaths.dataDirectory());
+        } catch (IOException e) {
+            System.err.println("Recipe storage unavailable, changes will not be saved: " + e.getMessage());
+            onRecipesLoaded();
+            return;
+        }
+
+        // The recovered recipes are added on this thread in runs; the table fills in on the
+        // FX thread as they arrive and they can be edited before the load has finished
+        RecipeJournal storage = journal;
+        Task<Boolean> task = new Task<>() {
+            @Override
+            protected Boolean call() throws IOException {
+                Collection<Recipe> recovered = storage.recover(recipeManager.dictionaries());
+                try {
+                    recipeManager.openStorage(storage, recovered);
+                    return true;
+                } catch (IOException ex) {
+                    System.err.println("Recipe storage unavailable, changes will not be saved: " + ex.getMessage());
+                    return false;
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (!task.getValue()) {
+                journal = null;
+            }
+            onRecipesLoaded();
+        });
+        task.setOnFailed(e -> {
+            journal = null;
+            System.err.println("Could not load stored recipes: " + task.getException().getMessage());
+            onRecipesLoaded();
+        });
+        Thread loader = new Thread(task, "recipe-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void onRecipesLoaded() {
+        if (recipeManager.size() == 0) {
+            recipeManager.addSampleRecipes();
+        }
+        recipeTable.setPlaceholder(new Label("No recipes"));
+        if (cardViewContainer != null) {
+            cardViewContainer.getImageService().warmUp(imageUrls());
+        }
+        applyFilters();
+    }
+
+    // Flushes pending writes; called when the application exits
+    public void shutdown() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing recipe storage: " + e.getMessage());
+            }
+        }
     }
 
     private void showAlert(String title, String content) {
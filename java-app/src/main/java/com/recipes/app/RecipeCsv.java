@@ -0,0 +1,154 @@
+package com.recipes.app;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// RFC 4180 style CSV: comma separated, fields optionally quoted with '"', quotes
+// doubled inside quoted fields, which may span lines. The first record is the header.
+final class RecipeCsv {
+    static final String[] COLUMNS = {
+        "id", "title", "ingredients", "instructions", "category", "cookingTimeMinutes",
+        "difficulty", "servings", "favorite", "imageUrl", "dietaryRestrictions"
+    };
+    // Dietary restrictions share one column
+    static final String RESTRICTION_SEPARATOR = ";";
+
+    private RecipeCsv() {
+    }
+
+    static StringBuilder appendHeader(StringBuilder out) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(COLUMNS[i]);
+        }
+        return out.append("\r\n");
+    }
+
+    // Appends the recipe as one record in COLUMNS order, ending with CRLF
+    static StringBuilder appendRecord(StringBuilder out, Recipe recipe) {
+        appendField(out, recipe.getId()).append(',');
+        appendField(out, recipe.getTitle()).append(',');
+        appendField(out, recipe.getIngredients()).append(',');
+        appendField(out, recipe.getInstructions()).append(',');
+        appendField(out, recipe.getCategory()).append(',');
+        out.append(recipe.getCookingTimeMinutes()).append(',');
+        appendField(out, recipe.getDifficulty()).append(',');
+        out.append(recipe.getServings()).append(',');
+        out.append(recipe.isFavorite()).append(',');
+        appendField(out, recipe.getImageUrl()).append(',');
+        appendField(out, String.join(RESTRICTION_SEPARATOR, recipe.getDietaryRestrictions()));
+        return out.append("\r\n");
+    }
+
+    private static StringBuilder appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    // Splits input into raw records. Line breaks inside quoted fields are kept as they
+    // are; the CRLF or LF that ends a record is dropped.
+    static class RecordReader {
+        private final Reader in;
+        private final char[] buffer = new char[1 << 16];
+        private final StringBuilder record = new StringBuilder();
+        private int position;
+        private int limit;
+
+        RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        // Next raw record; null at end of input
+        String read() throws IOException {
+            record.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (quoted) {
+                            throw new IOException("Unterminated quoted field at end of file");
+                        }
+                        return any ? trimCarriageReturn() : null;
+                    }
+                }
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position++];
+                    if (c == '"') {
+                        quoted = !quoted;
+                    } else if (c == '\n' && !quoted) {
+                        record.append(buffer, start, position - 1 - start);
+                        return trimCarriageReturn();
+                    }
+                }
+                record.append(buffer, start, limit - start);
+                any = true;
+            }
+        }
+
+        private String trimCarriageReturn() {
+            int length = record.length();
+            if (length > 0 && record.charAt(length - 1) == '\r') {
+                record.setLength(length - 1);
+            }
+            return record.toString();
+        }
+    }
+
+    static List<String> parseFields(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,158 @@
+package com.recipes.app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+// Streams recipes to a JSON Lines, CSV or plain text (share format) file. Each recipe
+// is formatted into one reused StringBuilder and encoded straight into a fixed-size
+// buffer that is drained to a FileChannel, so memory use does not depend on the
+// number of recipes. The file is written under a temporary name and moved into
+// place when complete. Safe to run on any thread; callers pass a snapshot such as
+// RecipeManager.snapshot().
+class RecipeExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PROGRESS_INTERVAL = 10_000;
+    private static final String TEXT_SEPARATOR = "\n\n----------------------------------------\n\n";
+
+    enum Format {
+        JSON_LINES, CSV, TEXT;
+
+        static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+                return JSON_LINES;
+            }
+            if (name.endsWith(".txt")) {
+                return TEXT;
+            }
+            throw new IllegalArgumentException("Unsupported file type: " + file.getFileName());
+        }
+    }
+
+    interface Progress {
+        void update(long written, long total);
+    }
+
+    private RecipeExporter() {
+    }
+
+    // Returns the number of recipes written. Interrupting the calling thread stops the
+    // export and leaves any existing file untouched.
+    static long export(List<Recipe> recipes, Path file, Progress progress) throws IOException, InterruptedException {
+        Format format = Format.of(file);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long written = 0;
+            // Closed before the move, so the file is complete when it appears under its name
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Output out = new Output(channel);
+                StringBuilder text = new StringBuilder(4096);
+                if (format == Format.CSV) {
+                    out.write(RecipeCsv.appendHeader(text));
+                }
+                for (Recipe recipe : recipes) {
+                    text.setLength(0);
+                    if (format == Format.JSON_LINES) {
+                        RecipeJson.appendRecipe(text, recipe).append('\n');
+                    } else if (format == Format.CSV) {
+                        RecipeCsv.appendRecord(text, recipe);
+                    } else {
+                        if (written > 0) {
+                            text.append(TEXT_SEPARATOR);
+                        }
+                        appendShareText(text, recipe);
+                    }
+                    out.write(text);
+                    if (++written % PROGRESS_INTERVAL == 0) {
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                        if (progress != null) {
+                            progress.update(written, recipes.size());
+                        }
+                    }
+                }
+                out.flush();
+                channel.force(false);
+                if (progress != null) {
+                    progress.update(written, recipes.size());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The human-readable form used for sharing a single recipe
+    static StringBuilder appendShareText(StringBuilder sb, Recipe recipe) {
+        sb.append("Recipe: ").append(recipe.getTitle()).append("\n\n");
+        sb.append("Category: ").append(recipe.getCategory()).append("\n");
+        sb.append("Cooking Time: ").append(recipe.getFormattedCookingTime()).append("\n");
+        sb.append("Difficulty: ").append(recipe.getDifficulty()).append("\n");
+        sb.append("Servings: ").append(recipe.getServings()).append("\n");
+        sb.append("Dietary Restrictions: ").append(String.join(", ", recipe.getDietaryRestrictions())).append("\n\n");
+        sb.append("Ingredients:\n").append(recipe.getIngredients()).append("\n\n");
+        sb.append("Instructions:\n").append(recipe.getInstructions());
+        return sb;
+    }
+
+    // UTF-8 encoder writing through one reused buffer
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[4096];
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Each text is encoded as complete input, so a malformed tail is replaced, not carried over
+        void write(StringBuilder text) throws IOException {
+            // Array-backed input and output take the encoder's fast path
+            if (chars.length < text.length()) {
+                chars = new char[Math.max(text.length(), chars.length * 2)];
+            }
+            text.getChars(0, text.length(), chars, 0);
+            CharBuffer input = CharBuffer.wrap(chars, 0, text.length());
+            encoder.reset();
+            while (encoder.encode(input, buffer, true).isOverflow()) {
+                drain();
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
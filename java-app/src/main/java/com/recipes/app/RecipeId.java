@@ -0,0 +1,71 @@
+package com.recipes.app;
+
+import java.util.UUID;
+
+// Compact form of a recipe id. Canonical lowercase UUID strings, which is every id the
+// app generates, are held as two longs; any other id keeps its text.
+final class RecipeId {
+    final long high;
+    final long low;
+    final String text;
+
+    private RecipeId(long high, long low, String text) {
+        this.high = high;
+        this.low = low;
+        this.text = text;
+    }
+
+    static RecipeId random() {
+        UUID uuid = UUID.randomUUID();
+        return new RecipeId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), null);
+    }
+
+    static RecipeId parse(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Recipe ID cannot be null");
+        }
+        if (id.length() != 36) {
+            return new RecipeId(0, 0, id);
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return new RecipeId(0, 0, id);
+                }
+                continue;
+            }
+            int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (digit < 0) {
+                return new RecipeId(0, 0, id);
+            }
+            if (i < 18) {
+                high = high << 4 | digit;
+            } else {
+                low = low << 4 | digit;
+            }
+        }
+        return new RecipeId(high, low, null);
+    }
+
+    static int hash(long high, long low, String text) {
+        int h = text != null ? text.hashCode() * 0x9E3779B9 : Long.hashCode(high * 0x9E3779B97F4A7C15L ^ low);
+        return h ^ (h >>> 16);
+    }
+
+    static String format(long high, long low, String text) {
+        return text != null ? text : new UUID(high, low).toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(high, low, text);
+    }
+
+    @Override
+    public String toString() {
+        return format(high, low, text);
+    }
+}
@@ -0,0 +1,392 @@
+package com.recipes.app;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Bulk import of JSON Lines and CSV recipe files of any size.
+//
+// The calling thread streams the file and cuts it into chunks of raw records. Worker
+// threads parse and validate chunks into Recipes in parallel, and chunks are committed
+// in file order, one RecipeManager.addRecipes call per chunk (which commits it in short
+// runs, so the UI is never locked out for a whole chunk). Only a bounded number of
+// chunks is in flight, so memory does not grow with the file.
+//
+// Commits run on commitExecutor; RecipeManager may be called from any thread, so a
+// background executor keeps committing off the reading thread. Recipes with an id that
+// already exists are skipped; invalid records are rejected and reported without
+// stopping the import.
+class RecipeImporter {
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int MAX_ERRORS = 100;
+
+    enum Format {
+        JSON_LINES, CSV;
+
+        static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Unsupported file type: " + file.getFileName());
+        }
+    }
+
+    interface Progress {
+        void update(long bytesRead, long totalBytes, long imported, double recipesPerSecond);
+    }
+
+    static class Result {
+        final long imported;
+        final long duplicates;
+        final long rejected;
+        final List<String> errors;
+        final double seconds;
+
+        Result(long imported, long duplicates, long rejected, List<String> errors, double seconds) {
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        double recipesPerSecond() {
+            return seconds > 0 ? imported / seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %,d recipes in %.1f s (%,.0f recipes/s); %,d duplicates skipped, %,d rejected",
+                imported, seconds, recipesPerSecond(), duplicates, rejected);
+        }
+    }
+
+    private final RecipeManager recipeManager;
+    private final Executor commitExecutor;
+    private final int workers;
+
+    RecipeImporter(RecipeManager recipeManager, Executor commitExecutor) {
+        this.recipeManager = recipeManager;
+        this.commitExecutor = commitExecutor;
+        this.workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    // Blocks until the whole file is committed. Interrupting the calling thread stops the
+    // import; chunks committed up to that point stay.
+    Result importFile(Path file, Progress progress) throws IOException, InterruptedException {
+        Format format = Format.of(file);
+        long totalBytes = Files.size(file);
+        long start = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "recipe-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (CountingInputStream bytes = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader in = new BufferedReader(new InputStreamReader(bytes, StandardCharsets.UTF_8), 1 << 16)) {
+            RecipeCsv.RecordReader csv = format == Format.CSV ? new RecipeCsv.RecordReader(in) : null;
+            String[] columns = csv != null ? readHeader(csv) : null;
+            Deque<Future<Chunk>> parsing = new ArrayDeque<>();
+            Committer committer = new Committer();
+            long recordNumber = 1;
+            List<String> records;
+            while (!(records = readChunk(in, csv)).isEmpty()) {
+                long first = recordNumber;
+                List<String> chunk = records;
+                parsing.add(parsers.submit(() -> parse(chunk, first, format, columns, recipeManager.dictionaries())));
+                recordNumber += records.size();
+                if (parsing.size() > workers * 2) {
+                    committer.commit(take(parsing));
+                    report(progress, bytes.count, totalBytes, committer.imported, start);
+                }
+            }
+            while (!parsing.isEmpty()) {
+                committer.commit(take(parsing));
+                report(progress, bytes.count, totalBytes, committer.imported, start);
+            }
+            committer.finish();
+            report(progress, totalBytes, totalBytes, committer.imported, start);
+            return new Result(committer.imported, committer.duplicates, committer.rejected,
+                Collections.unmodifiableList(committer.errors), (System.nanoTime() - start) / 1e9);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private static String[] readHeader(RecipeCsv.RecordReader csv) throws IOException {
+        String header = csv.read();
+        if (header == null) {
+            throw new IOException("CSV file has no header");
+        }
+        List<String> columns = RecipeCsv.parseFields(header);
+        if (!columns.isEmpty() && columns.get(0).startsWith("\uFEFF")) {
+            columns.set(0, columns.get(0).substring(1));
+        }
+        if (!columns.contains("title")) {
+            throw new IOException("CSV header has no title column");
+        }
+        return columns.toArray(new String[0]);
+    }
+
+    // Raw records are CSV records when csv is given, otherwise lines
+    private static List<String> readChunk(BufferedReader in, RecipeCsv.RecordReader csv) throws IOException {
+        List<String> records = new ArrayList<>(CHUNK_SIZE);
+        String record;
+        while (records.size() < CHUNK_SIZE
+                && (record = csv != null ? csv.read() : in.readLine()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static Chunk parse(List<String> records, long firstRecord, Format format, String[] columns,
+            ValueDictionary.Scope dictionaries) {
+        Chunk chunk = new Chunk(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            String record = records.get(i);
+            if (record.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                Map<String, Object> fields = format == Format.CSV ? csvFields(columns, record) : RecipeJson.parseObject(record);
+                chunk.recipes.add(toRecipe(fields, dictionaries));
+            } catch (IllegalArgumentException e) {
+                chunk.rejected++;
+                if (chunk.errors.size() < MAX_ERRORS) {
+                    chunk.errors.add("Record " + (firstRecord + i) + ": " + e.getMessage());
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static Map<String, Object> csvFields(String[] columns, String record) {
+        List<String> values = RecipeCsv.parseFields(record);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " fields but found " + values.size());
+        }
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            String value = values.get(i);
+            fields.put(columns[i], value.isEmpty() ? null : value);
+        }
+        return fields;
+    }
+
+    // Builds and validates a recipe from named field values, encoded into the given
+    // dictionaries; CSV values are all strings
+    static Recipe toRecipe(Map<String, Object> fields, ValueDictionary.Scope dictionaries) {
+        String title = text(fields, "title");
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Recipe title cannot be empty");
+        }
+        String id = text(fields, "id");
+        Recipe recipe = id == null ? new Recipe() : new Recipe(id);
+        recipe.useDictionaries(dictionaries);
+        recipe.setTitle(title);
+        recipe.setIngredients(text(fields, "ingredients"));
+        recipe.setInstructions(text(fields, "instructions"));
+        recipe.setCategory(text(fields, "category"));
+        recipe.setDifficulty(text(fields, "difficulty"));
+        recipe.setImageUrl(text(fields, "imageUrl"));
+        recipe.setCookingTimeMinutes(count(fields, "cookingTimeMinutes"));
+        recipe.setServings(count(fields, "servings"));
+        recipe.setFavorite(flag(fields, "favorite"));
+        Object restrictions = fields.get("dietaryRestrictions");
+        if (restrictions instanceof String) {
+            restrictions = Arrays.asList(((String) restrictions).split(RecipeCsv.RESTRICTION_SEPARATOR));
+        }
+        if (restrictions instanceof List) {
+            for (Object restriction : (List<?>) restrictions) {
+                if (!(restriction instanceof String)) {
+                    throw new IllegalArgumentException("dietaryRestrictions must contain strings");
+                }
+                String value = ((String) restriction).trim();
+                if (!value.isEmpty()) {
+                    recipe.addDietaryRestriction(value);
+                }
+            }
+        } else if (restrictions != null) {
+            throw new IllegalArgumentException("dietaryRestrictions must be a list");
+        }
+        return recipe;
+    }
+
+    private static String text(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static int count(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        long number;
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Long) {
+            number = (Long) value;
+        } else if (value instanceof String) {
+            try {
+                number = Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " must be a whole number");
+            }
+        } else {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+        if (number < 0 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " out of range: " + number);
+        }
+        return (int) number;
+    }
+
+    private static boolean flag(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null || value instanceof Boolean) {
+            return Boolean.TRUE.equals(value);
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.equalsIgnoreCase("true") || text.equals("1")) {
+                return true;
+            }
+            if (text.equalsIgnoreCase("false") || text.equals("0")) {
+                return false;
+            }
+        }
+        throw new IllegalArgumentException(name + " must be true or false");
+    }
+
+    private static Chunk take(Deque<Future<Chunk>> parsing) throws InterruptedException {
+        try {
+            return parsing.remove().get();
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static void report(Progress progress, long bytesRead, long totalBytes, long imported, long start) {
+        if (progress != null) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            progress.update(bytesRead, totalBytes, imported, seconds > 0 ? imported / seconds : 0);
+        }
+    }
+
+    // Parsed records of one chunk, in file order
+    private static class Chunk {
+        final List<Recipe> recipes;
+        final List<String> errors = new ArrayList<>();
+        int rejected;
+
+        Chunk(int size) {
+            recipes = new ArrayList<>(size);
+        }
+    }
+
+    // Commits chunks one at a time so the next chunk is parsed while one is committed
+    private class Committer {
+        long imported;
+        long duplicates;
+        long rejected;
+        final List<String> errors = new ArrayList<>();
+        private CompletableFuture<Integer> running;
+        private int runningSize;
+
+        void commit(Chunk chunk) throws InterruptedException {
+            finish();
+            rejected += chunk.rejected;
+            for (String error : chunk.errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(error);
+                }
+            }
+            runningSize = chunk.recipes.size();
+            running = CompletableFuture.supplyAsync(() -> recipeManager.addRecipes(chunk.recipes), commitExecutor);
+        }
+
+        void finish() throws InterruptedException {
+            if (running == null) {
+                return;
+            }
+            try {
+                int added = running.get();
+                imported += added;
+                duplicates += runningSize - added;
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            } finally {
+                running = null;
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
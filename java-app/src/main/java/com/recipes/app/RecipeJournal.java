@@ -0,0 +1,340 @@
+package com.recipes.app;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+// Write-ahead journal for RecipeManager mutations.
+//
+// Mutations are encoded on the calling thread and handed to a writer thread, which
+// appends them in batches and fsyncs once per batch (group commit), so callers never
+// wait for the disk. A crash loses at most the batch that was being written.
+//
+// Every COMPACT_AFTER records the writer starts a new journal generation N and then
+// writes snapshot-N (a CatalogFile) from the live catalog. Records are idempotent (full recipe
+// upserts, deletes, favorite set to a value), so replaying journal-N over a snapshot
+// that already saw some of its changes gives the same result. Recovery loads the
+// newest snapshot and replays every journal of the same or a later generation.
+//
+// Journal record: int length | int crc32(payload) | payload (type byte + fields)
+class RecipeJournal implements AutoCloseable {
+    private static final byte ADD = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+    private static final byte FAVORITE = 4;
+
+    private static final int COMPACT_AFTER = 50_000;
+    private static final int MAX_BATCH = 4096;
+    private static final byte[] CLOSE = new byte[0];
+
+    private final Path directory;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private RecipeManager recipeManager;
+    // Snapshot that recovered recipes read their bodies from; kept open and on disk
+    private CatalogFile bodySource;
+    private Path bodySourceFile;
+    private FileChannel journal;
+    private long generation;
+    private int recordsSinceSnapshot;
+
+    RecipeJournal(Path directory) {
+        this.directory = directory;
+        this.writer = new Thread(this::writeLoop, "recipe-journal");
+        this.writer.setDaemon(true);
+    }
+
+    // Rebuilds the catalog from disk, encoded into the given dictionaries; call before attach()
+    Collection<Recipe> recover(ValueDictionary.Scope dictionaries) throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.matches("snapshot-\\d+\\.rcat")) {
+                    snapshots.put(Long.parseLong(name.replaceAll("\\D", "")), file);
+                } else if (name.matches("journal-\\d+\\.log")) {
+                    journals.put(Long.parseLong(name.replaceAll("\\D", "")), file);
+                }
+            }
+        }
+
+        Map<String, Recipe> recipes = new LinkedHashMap<>();
+        long base = 0;
+        if (!snapshots.isEmpty()) {
+            base = snapshots.lastKey();
+            bodySourceFile = snapshots.get(base);
+            bodySource = CatalogFile.open(bodySourceFile);
+            RecipeBodies bodies = new RecipeBodies(bodySource);
+            for (int i = 0; i < bodySource.size(); i++) {
+                Recipe recipe = bodySource.readSummary(i, dictionaries);
+                recipe.setBodySource(bodies, i);
+                recipes.put(recipe.getId(), recipe);
+            }
+            deleteOlderThan(base, null);
+        }
+        for (Map.Entry<Long, Path> entry : journals.entrySet()) {
+            if (entry.getKey() >= base) {
+                recordsSinceSnapshot += replay(entry.getValue(), recipes, dictionaries);
+            }
+        }
+        generation = Math.max(base, journals.isEmpty() ? 0 : journals.lastKey());
+        return recipes.values();
+    }
+
+    // Starts journaling; recovered data must already be loaded into the manager
+    void attach(RecipeManager recipeManager) throws IOException {
+        this.recipeManager = recipeManager;
+        // Always start a fresh generation so a torn tail in the old file is never appended to
+        openJournal(generation + 1);
+        writer.start();
+    }
+
+    void recordAdd(Recipe recipe) {
+        enqueue(ADD, recipe);
+    }
+
+    void recordUpdate(Recipe recipe) {
+        enqueue(UPDATE, recipe);
+    }
+
+    void recordDelete(String recipeId) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(DELETE);
+            RecipeCodec.writeString(out, recipeId);
+            queue.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void recordFavorite(String recipeId, boolean favorite) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FAVORITE);
+            RecipeCodec.writeString(out, recipeId);
+            out.writeBoolean(favorite);
+            queue.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Flushes everything recorded so far and stops the writer
+    @Override
+    public void close() throws IOException {
+        if (writer.isAlive()) {
+            queue.add(CLOSE);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (bodySource != null) {
+            bodySource.close();
+        }
+    }
+
+    private void enqueue(byte type, Recipe recipe) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            RecipeCodec.write(out, recipe);
+            queue.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean closing = false;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                closing |= batch.remove(CLOSE);
+                writeBatch(batch);
+                recordsSinceSnapshot += batch.size();
+                batch.clear();
+                if (closing) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // Keep the batch and retry; a partial write was rolled back by writeBatch
+                System.err.println("Journal write failed: " + e.getMessage());
+                if (closing) {
+                    return;
+                }
+                pause();
+                continue;
+            }
+
+            if (recordsSinceSnapshot >= COMPACT_AFTER) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("Journal compaction failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size() * 2];
+        long remaining = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] payload = batch.get(i);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffers[2 * i] = ByteBuffer.allocate(8).putInt(payload.length).putInt((int) crc.getValue()).flip();
+            buffers[2 * i + 1] = ByteBuffer.wrap(payload);
+            remaining += 8 + payload.length;
+        }
+        long start = journal.size();
+        try {
+            while (remaining > 0) {
+                remaining -= journal.write(buffers);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            try {
+                journal.truncate(start);
+            } catch (IOException ignored) {
+                // Replay stops at the torn record anyway
+            }
+            throw e;
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compact() throws IOException {
+        long next = generation + 1;
+        openJournal(next);
+        recordsSinceSnapshot = 0;
+
+        Path snapshot = directory.resolve("snapshot-" + next + ".rcat");
+        Path temp = directory.resolve("snapshot-" + next + ".tmp");
+        CatalogFile.write(temp, recipeManager.snapshot());
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // Everything older is covered by the new snapshot
+        deleteOlderThan(next, bodySourceFile);
+    }
+
+    private void deleteOlderThan(long keepFrom, Path inUse) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{snapshot,journal}-*")) {
+            for (Path file : files) {
+                String digits = file.getFileName().toString().replaceAll("\\D", "");
+                if (!digits.isEmpty() && Long.parseLong(digits) < keepFrom && !file.equals(inUse)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void openJournal(long newGeneration) throws IOException {
+        FileChannel previous = journal;
+        journal = FileChannel.open(directory.resolve("journal-" + newGeneration + ".log"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        generation = newGeneration;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    // Applies records until the end of the file or the first torn/corrupt record
+    private static int replay(Path file, Map<String, Recipe> recipes, ValueDictionary.Scope dictionaries)
+            throws IOException {
+        int count = 0;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(stream);
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0) {
+                        return count;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        return count;
+                    }
+                } catch (EOFException e) {
+                    return count;
+                }
+                apply(payload, recipes, dictionaries);
+                count++;
+            }
+        }
+    }
+
+    private static void apply(byte[] payload, Map<String, Recipe> recipes, ValueDictionary.Scope dictionaries)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD:
+            case UPDATE:
+                Recipe recipe = RecipeCodec.read(in, dictionaries);
+                recipes.put(recipe.getId(), recipe);
+                break;
+            case DELETE:
+                recipes.remove(RecipeCodec.readString(in));
+                break;
+            case FAVORITE:
+                Recipe existing = recipes.get(RecipeCodec.readString(in));
+                boolean favorite = in.readBoolean();
+                if (existing != null) {
+                    existing.setFavorite(favorite);
+                }
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JSON support for JSON Lines recipe files: one flat object per line. Values
+// are parsed to String, Long, Double, Boolean, null, List or Map.
+final class RecipeJson {
+    private final String text;
+    private int position;
+
+    private RecipeJson(String text) {
+        this.text = text;
+    }
+
+    static Map<String, Object> parseObject(String line) {
+        RecipeJson parser = new RecipeJson(line);
+        parser.skipWhitespace();
+        Map<String, Object> object = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.position != line.length()) {
+            throw parser.error("Unexpected content after object");
+        }
+        return object;
+    }
+
+    // Appends the recipe as one JSON object, without a line break
+    static StringBuilder appendRecipe(StringBuilder out, Recipe recipe) {
+        out.append("{\"id\":");
+        appendString(out, recipe.getId());
+        out.append(",\"title\":");
+        appendString(out, recipe.getTitle());
+        out.append(",\"ingredients\":");
+        appendString(out, recipe.getIngredients());
+        out.append(",\"instructions\":");
+        appendString(out, recipe.getInstructions());
+        out.append(",\"category\":");
+        appendString(out, recipe.getCategory());
+        out.append(",\"cookingTimeMinutes\":").append(recipe.getCookingTimeMinutes());
+        out.append(",\"difficulty\":");
+        appendString(out, recipe.getDifficulty());
+        out.append(",\"servings\":").append(recipe.getServings());
+        out.append(",\"favorite\":").append(recipe.isFavorite());
+        out.append(",\"imageUrl\":");
+        appendString(out, recipe.getImageUrl());
+        out.append(",\"dietaryRestrictions\":[");
+        List<String> restrictions = recipe.getDietaryRestrictions();
+        for (int i = 0; i < restrictions.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendString(out, restrictions.get(i));
+        }
+        return out.append("]}");
+    }
+
+    static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        // Copy runs of plain characters in one append
+        int run = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escape = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            out.append(value, run, i).append(escape);
+            run = i + 1;
+        }
+        out.append(value, run, value.length()).append('"');
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        expect("{");
+        Map<String, Object> object = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(":");
+            object.put(key, readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        expect("[");
+        List<Object> array = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        expect("\"");
+        StringBuilder value = null;
+        int start = position;
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value == null ? text.substring(start, position - 1) : value.toString();
+            }
+            if (c != '\\') {
+                if (value != null) {
+                    value.append(c);
+                }
+                continue;
+            }
+            if (value == null) {
+                value = new StringBuilder(text.substring(start, position - 1));
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escaped);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Bad unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Bad unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Bad escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Unexpected value");
+        }
+    }
+
+    private void expect(String token) {
+        if (!text.startsWith(token, position)) {
+            throw error("Expected '" + token + "'");
+        }
+        position += token.length();
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private char next() {
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(position++);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at column " + (position + 1));
+    }
+}
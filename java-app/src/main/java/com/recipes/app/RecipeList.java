@@ -0,0 +1,167 @@
+package com.recipes.app;
+
+import javafx.collections.ObservableListBase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The manager's backing list. It supports only what slot bookkeeping needs: appending,
+// replacing and removing the last element, so positions never shift.
+//
+// It also acts as its own extractor: replacing a recipe with a newer version of itself
+// (same id) is reported as an update of that position, as is update(). FilteredList
+// then re-tests just that recipe and the table redraws just that row, without a
+// listener on every element. A replace change would make the table rebuild every
+// visible row.
+//
+// Changes made between beginBatch() and endBatch() reach listeners (FilteredList,
+// table, card grid) as one Change describing only the positions that changed. It is
+// built from the net effect in ascending order; letting the change builder coalesce
+// many interleaved removes, adds and sets is not handled reliably by FilteredList.
+class RecipeList extends ObservableListBase<Recipe> {
+    private final ArrayList<Recipe> items = new ArrayList<>();
+
+    // Batch state: the element each touched position held before the batch
+    private final Map<Integer, Recipe> originals = new HashMap<>();
+    private int depth;
+    private int sizeBefore;
+
+    void beginBatch() {
+        if (depth++ == 0) {
+            sizeBefore = items.size();
+        }
+    }
+
+    void endBatch() {
+        if (--depth == 0) {
+            publish();
+        }
+    }
+
+    @Override
+    public Recipe get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public void add(int index, Recipe recipe) {
+        if (index != items.size()) {
+            throw new UnsupportedOperationException("Recipes can only be appended");
+        }
+        items.add(recipe);
+        modCount++;
+        if (depth > 0) {
+            touch(index, null);
+        } else {
+            beginChange();
+            nextAdd(index, index + 1);
+            endChange();
+        }
+    }
+
+    @Override
+    public Recipe set(int index, Recipe recipe) {
+        Recipe previous = items.set(index, recipe);
+        if (depth > 0) {
+            touch(index, previous);
+        } else {
+            beginChange();
+            if (previous.hasSameId(recipe)) {
+                nextUpdate(index);
+            } else {
+                nextSet(index, previous);
+            }
+            endChange();
+        }
+        return previous;
+    }
+
+    // Reports that the recipe at index changed in place
+    void update(int index) {
+        if (depth > 0) {
+            touch(index, items.get(index));
+        } else {
+            beginChange();
+            nextUpdate(index);
+            endChange();
+        }
+    }
+
+    @Override
+    public Recipe remove(int index) {
+        if (index != items.size() - 1) {
+            throw new UnsupportedOperationException("Only the last recipe can be removed");
+        }
+        Recipe previous = items.remove(index);
+        modCount++;
+        if (depth > 0) {
+            touch(index, previous);
+        } else {
+            beginChange();
+            nextRemove(index, previous);
+            endChange();
+        }
+        return previous;
+    }
+
+    private void touch(int index, Recipe previous) {
+        if (index < sizeBefore && previous != null) {
+            originals.putIfAbsent(index, previous);
+        }
+    }
+
+    // One Change with sub-changes in ascending order: updates and runs of replaced
+    // positions below the smaller of the two sizes, then the removed or added tail.
+    private void publish() {
+        int sizeAfter = items.size();
+        int common = Math.min(sizeBefore, sizeAfter);
+        List<Integer> touched = new ArrayList<>(originals.size());
+        for (int index : originals.keySet()) {
+            if (index < common) {
+                touched.add(index);
+            }
+        }
+        Collections.sort(touched);
+        if (touched.isEmpty() && sizeAfter == sizeBefore) {
+            originals.clear();
+            return;
+        }
+
+        beginChange();
+        int i = 0;
+        while (i < touched.size()) {
+            int from = touched.get(i);
+            if (items.get(from).hasSameId(originals.get(from))) {
+                nextUpdate(from);
+                i++;
+                continue;
+            }
+            List<Recipe> removed = new ArrayList<>();
+            int to = from;
+            while (i < touched.size() && touched.get(i) == to && !items.get(to).hasSameId(originals.get(to))) {
+                removed.add(originals.get(to));
+                to++;
+                i++;
+            }
+            nextReplace(from, to, removed);
+        }
+        if (sizeAfter < sizeBefore) {
+            List<Recipe> removed = new ArrayList<>(sizeBefore - sizeAfter);
+            for (int index = sizeAfter; index < sizeBefore; index++) {
+                removed.add(originals.get(index));
+            }
+            nextRemove(sizeAfter, removed);
+        } else if (sizeAfter > sizeBefore) {
+            nextAdd(sizeBefore, sizeAfter);
+        }
+        endChange();
+        originals.clear();
+    }
+}
@@ -3,109 +3,1047 @@ package com.recipes.app;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+// Recipe store that may be read and changed from any thread.
+//
+// The store itself (the recipes list, id table and indexes) is guarded by one
+// read-write lock. Stored recipes are never changed in place: updates and favorite
+// toggles put an edited copy in the slot, so snapshot() can hand out a plain array of
+// references as an immutable point-in-time view.
+//
+// The observable lists shown by the UI are a view of the store. Mutations only mark
+// the slots they touched; the view is brought up to date on viewExecutor (the FX
+// application thread in the app), as one list change covering everything that
+// happened since the previous update. That update only needs the read lock, and bulk
+// adds let go of the write lock every few hundred recipes, so the FX thread never
+// waits for more than a short run of mutations.
 public class RecipeManager {
-    private final ObservableList<Recipe> recipes;
-    private final FilteredList<Recipe> filteredRecipes;
+    // Recipes addRecipes commits per write lock hold
+    private static final int COMMIT_BATCH = 256;
 
+    private final ArrayList<Recipe> recipes = new ArrayList<>();
+    // id -> recipe; each recipe's slot is its position in the recipes list
+    private final RecipeTable recipesById;
+    private final SearchIndex searchIndex;
+    private final RelevanceIndex relevanceIndex;
+    private final PantryIndex pantryIndex;
+    private final AttributeIndex attributeIndex;
+    // The text indexes (search, relevance, pantry) cover slots [0, textIndexed). Opening
+    // storage leaves them behind so the catalog is listed at summary-load speed; text
+    // searches scan the slots not covered yet until indexText has caught up.
+    private int textIndexed;
+    // Recipes are re-encoded into these when added, so this store's values stay its own
+    private final ValueDictionary.Scope dictionaries = new ValueDictionary.Scope();
+    private RecipeJournal journal;
+
+    // Mutations hold the write lock; filters may be evaluated under the read lock from any
+    // thread. Fair, so a view update queued behind a bulk add gets in before its next run.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private long modCount;
+    private volatile List<Recipe> snapshot;
+
+    // The view, only touched by syncView() under viewLock; viewDirty holds the slots changed since
+    private final Object viewLock = new Object();
+    private final RecipeList view = new RecipeList();
+    private final FilteredList<Recipe> filteredRecipes = new FilteredList<>(view);
+    // What getAllRecipes() hands out: RecipeList only supports the manager's own slot
+    // bookkeeping, so callers get no mutators at all
+    private final ObservableList<Recipe> readOnlyView = FXCollections.unmodifiableObservableList(view);
+    private final Executor viewExecutor;
+    private final BitSet viewDirty = new BitSet();
+    private final AtomicBoolean viewUpdatePending = new AtomicBoolean();
+
+    // Current filter, the slots it matches and its facet counts, kept in step with every mutation
+    private RecipeFilter activeFilter;
+    private String activeSearch;
+    private BitSet activeMatches;
+    private AttributeIndex.Facets activeFacets;
+
+    // The view follows every mutation immediately, on the mutating thread
     public RecipeManager() {
-        this.recipes = FXCollections.observableArrayList();
-        this.filteredRecipes = new FilteredList<>(recipes);
+        this(Runnable::run);
+    }
+
+    // viewExecutor runs view updates on the thread that owns the observable lists
+    public RecipeManager(Executor viewExecutor) {
+        this.viewExecutor = viewExecutor;
+        this.recipesById = new RecipeTable();
+        this.searchIndex = new SearchIndex();
+        this.relevanceIndex = new RelevanceIndex();
+        this.pantryIndex = new PantryIndex();
+        this.attributeIndex = new AttributeIndex();
+        this.activeFacets = attributeIndex.facets(new RecipeFilter(), new BitSet());
+    }
+
+    // For headless use: the view lists stay empty and mutations do no view work, since
+    // the one view update ever scheduled is dropped
+    static RecipeManager withoutView() {
+        return new RecipeManager(update -> { });
     }
 
     public void addRecipe(Recipe recipe) {
-        if (recipe == null) {
-            throw new IllegalArgumentException("Recipe cannot be null");
+        long start = Metrics.start();
+        validate(recipe);
+        lock.writeLock().lock();
+        try {
+            if (recipesById.containsIdOf(recipe)) {
+                throw new IllegalArgumentException("Recipe already exists: " + recipe.getId());
+            }
+            insert(recipe, true);
+            if (journal != null) {
+                journal.recordAdd(recipe);
+            }
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
         }
-        if (recipe.getTitle() == null || recipe.getTitle().trim().isEmpty()) {
-            throw new IllegalArgumentException("Recipe title cannot be empty");
+    }
+
+    // Adds a batch, COMMIT_BATCH recipes per write lock hold, so readers and the view can
+    // get in between; the view may show the batch in several list changes. Recipes whose
+    // id is already present are skipped; returns the number added. Unlike applyBatch this
+    // is not all-or-nothing: if a recipe fails to index, the ones before it stay.
+    int addRecipes(Collection<Recipe> batch) {
+        return addRecipes(batch, true);
+    }
+
+    private int addRecipes(Collection<Recipe> batch, boolean indexText) {
+        long start = Metrics.start();
+        for (Recipe recipe : batch) {
+            validate(recipe);
+        }
+        int added = 0;
+        Iterator<Recipe> pending = batch.iterator();
+        try {
+            while (pending.hasNext()) {
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < COMMIT_BATCH && pending.hasNext(); i++) {
+                        Recipe recipe = pending.next();
+                        if (recipesById.containsIdOf(recipe)) {
+                            continue;
+                        }
+                        insert(recipe, indexText);
+                        added++;
+                        if (journal != null) {
+                            journal.recordAdd(recipe);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                    scheduleViewUpdate();
+                }
+            }
+            return added;
+        } finally {
+            Metrics.MUTATION.stop(start);
         }
-        recipes.add(recipe);
     }
 
+    // Replaces the stored recipe with the same id, if there is one. Pass an edited copy:
+    // stored recipes are shared with snapshots and must not be changed in place.
     public void updateRecipe(Recipe recipe) {
+        updateRecipeIfPresent(recipe);
+    }
+
+    // As updateRecipe; returns false if there is no recipe with that id
+    public boolean updateRecipeIfPresent(Recipe recipe) {
+        long start = Metrics.start();
         if (recipe == null || recipe.getId() == null) {
             throw new IllegalArgumentException("Invalid recipe");
         }
 
-        Recipe existingRecipe = findRecipeById(recipe.getId());
-        if (existingRecipe != null) {
-            int index = recipes.indexOf(existingRecipe);
-            recipes.set(index, recipe);
+        lock.writeLock().lock();
+        try {
+            Recipe existingRecipe = findRecipeById(recipe.getId());
+            if (existingRecipe != null) {
+                replace(existingRecipe.slot, recipe);
+                if (journal != null) {
+                    journal.recordUpdate(recipe);
+                }
+            }
+            return existingRecipe != null;
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
         }
     }
 
     public void deleteRecipe(String recipeId) {
+        deleteRecipeIfPresent(recipeId);
+    }
+
+    // As deleteRecipe; returns false if there is no recipe with that id
+    public boolean deleteRecipeIfPresent(String recipeId) {
+        long start = Metrics.start();
         if (recipeId == null) {
             throw new IllegalArgumentException("Recipe ID cannot be null");
         }
 
-        Recipe recipe = findRecipeById(recipeId);
-        if (recipe != null) {
-            recipes.remove(recipe);
+        lock.writeLock().lock();
+        try {
+            Recipe recipe = findRecipeById(recipeId);
+            if (recipe != null) {
+                delete(recipe);
+                if (journal != null) {
+                    journal.recordDelete(recipeId);
+                }
+            }
+            return recipe != null;
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
+        }
+    }
+
+    // Applies all mutations made through the Batch under one write lock and publishes them
+    // as a single list change. If any of them throws, the ones already applied are undone
+    // in reverse order, nothing is journaled, and the exception is rethrown.
+    public void applyBatch(Consumer<Batch> mutations) {
+        long start = Metrics.start();
+        lock.writeLock().lock();
+        Batch batch = new Batch();
+        try {
+            mutations.accept(batch);
+            batch.open = false;
+            if (journal != null) {
+                for (Consumer<RecipeJournal> record : batch.records) {
+                    record.accept(journal);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            batch.open = false;
+            try {
+                batch.rollBack();
+            } catch (RuntimeException undoFailure) {
+                e.addSuppressed(undoFailure);
+            }
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
         }
     }
 
+    // Edits every recipe matching the predicate as one batch; returns the number edited
+    public int updateWhere(Predicate<? super Recipe> where, Consumer<? super Recipe> edit) {
+        int[] count = new int[1];
+        applyBatch(batch -> count[0] = batch.updateWhere(where, edit));
+        return count[0];
+    }
+
+    // Deletes every recipe matching the predicate as one batch; returns the number deleted
+    public int deleteWhere(Predicate<? super Recipe> where) {
+        int[] count = new int[1];
+        applyBatch(batch -> count[0] = batch.deleteWhere(where));
+        return count[0];
+    }
+
+    private static void validate(Recipe recipe) {
+        if (recipe == null) {
+            throw new IllegalArgumentException("Recipe cannot be null");
+        }
+        if (recipe.getTitle() == null || recipe.getTitle().trim().isEmpty()) {
+            throw new IllegalArgumentException("Recipe title cannot be empty");
+        }
+    }
+
+    // The primitives below expect the write lock to be held and keep every index, the
+    // active filter and the view's dirty slots in step.
+
+    // Appends a recipe whose id is not present yet; its text is indexed only if asked
+    // and the text indexes are not behind
+    private void insert(Recipe recipe, boolean indexText) {
+        int slot = recipes.size();
+        recipe.useDictionaries(dictionaries);
+        // Validates before changing anything, so a failure leaves all indexes intact
+        attributeIndex.add(slot, recipe);
+        recipe.slot = slot;
+        recipesById.put(recipe);
+        if (indexText && textIndexed == slot) {
+            addText(slot, recipe);
+        }
+        refreshMatch(slot, recipe);
+        recipes.add(recipe);
+        changed(slot);
+    }
+
+    // Puts a recipe in place of the one at slot, which has the same id
+    private void replace(int slot, Recipe recipe) {
+        Recipe existing = recipes.get(slot);
+        recipe.useDictionaries(dictionaries);
+        uncountFacets(slot);
+        attributeIndex.update(slot, recipe);
+        if (existing != recipe) {
+            if (existing.slot == slot) {
+                existing.slot = -1;
+            }
+            recipe.slot = slot;
+            recipesById.put(recipe);
+        }
+        if (slot < textIndexed && (existing == recipe || !recipe.sharesTextWith(existing))) {
+            updateText(slot, recipe);
+        }
+        refreshMatch(slot, recipe);
+        recipes.set(slot, recipe);
+        changed(slot);
+    }
+
+    private void addText(int slot, Recipe recipe) {
+        searchIndex.add(slot, recipe);
+        relevanceIndex.add(slot, recipe);
+        pantryIndex.add(slot, recipe);
+        textIndexed++;
+    }
+
+    private void updateText(int slot, Recipe recipe) {
+        searchIndex.update(slot, recipe);
+        relevanceIndex.update(slot, recipe);
+        pantryIndex.update(slot, recipe);
+    }
+
+    private void delete(Recipe recipe) {
+        recipesById.remove(recipe.getId());
+        removeSlot(recipe.slot);
+        recipe.slot = -1;
+    }
+
+    // Swap-remove: the last recipe takes over the freed slot so nothing shifts
+    private void removeSlot(int slot) {
+        int last = recipes.size() - 1;
+        uncountFacets(slot);
+        if (last < textIndexed) {
+            searchIndex.remove(slot);
+            relevanceIndex.remove(slot);
+            pantryIndex.remove(slot);
+            textIndexed--;
+        } else if (slot < textIndexed) {
+            // The recipe moving in has no text indexed yet
+            updateText(slot, recipes.get(last));
+        }
+        attributeIndex.remove(slot);
+        if (activeMatches != null) {
+            activeMatches.set(slot, activeMatches.get(last));
+            activeMatches.clear(last);
+        }
+        Recipe moved = recipes.remove(last);
+        if (slot != last) {
+            moved.slot = slot;
+            recipes.set(slot, moved);
+        }
+        changed(slot);
+    }
+
+    private void changed(int slot) {
+        modCount++;
+        snapshot = null;
+        viewDirty.set(slot);
+    }
+
+    // Exact inverse of delete: the recipe that was moved into its slot goes back to the end
+    private void undelete(int slot, Recipe recipe) {
+        if (slot == recipes.size()) {
+            insert(recipe, true);
+            return;
+        }
+        insert(recipes.get(slot), true);
+        replace(slot, recipe);
+    }
+
+    // Mutations collected by applyBatch. Each step is applied immediately (so later steps
+    // see earlier ones) and records how to undo itself. Recipes are replaced by edited
+    // copies rather than changed in place, so an update can always be rolled back.
+    public class Batch {
+        private final List<Runnable> undo = new ArrayList<>();
+        private final List<Consumer<RecipeJournal>> records = new ArrayList<>();
+        private boolean open = true;
+
+        private Batch() {
+        }
+
+        public void add(Recipe recipe) {
+            checkOpen();
+            validate(recipe);
+            if (recipesById.containsIdOf(recipe)) {
+                throw new IllegalArgumentException("Recipe already exists: " + recipe.getId());
+            }
+            insert(recipe, true);
+            undo.add(() -> RecipeManager.this.delete(recipe));
+            records.add(journal -> journal.recordAdd(recipe));
+        }
+
+        // Replaces the stored recipe with the same id; passing the stored object itself
+        // after editing it in place cannot be undone, so pass a copy
+        public void update(Recipe recipe) {
+            checkOpen();
+            validate(recipe);
+            Recipe existing = findRecipeById(recipe.getId());
+            if (existing == null) {
+                throw new IllegalArgumentException("No such recipe: " + recipe.getId());
+            }
+            int slot = existing.slot;
+            replace(slot, recipe);
+            undo.add(() -> replace(slot, existing));
+            records.add(journal -> journal.recordUpdate(recipe));
+        }
+
+        public void delete(String recipeId) {
+            checkOpen();
+            Recipe recipe = findRecipeById(recipeId);
+            if (recipe == null) {
+                return;
+            }
+            int slot = recipe.slot;
+            RecipeManager.this.delete(recipe);
+            undo.add(() -> undelete(slot, recipe));
+            records.add(journal -> journal.recordDelete(recipeId));
+        }
+
+        public void setFavorite(String recipeId, boolean favorite) {
+            checkOpen();
+            Recipe existing = findRecipeById(recipeId);
+            if (existing == null || existing.isFavorite() == favorite) {
+                return;
+            }
+            Recipe edited = existing.copy();
+            edited.setFavorite(favorite);
+            int slot = existing.slot;
+            replace(slot, edited);
+            undo.add(() -> replace(slot, existing));
+            records.add(journal -> journal.recordFavorite(recipeId, favorite));
+        }
+
+        // Applies edit to a copy of each matching recipe; returns the number edited
+        public int updateWhere(Predicate<? super Recipe> where, Consumer<? super Recipe> edit) {
+            checkOpen();
+            List<Recipe> matching = new ArrayList<>();
+            for (Recipe recipe : recipes) {
+                if (where.test(recipe)) {
+                    matching.add(recipe);
+                }
+            }
+            for (Recipe recipe : matching) {
+                Recipe edited = recipe.copy();
+                edit.accept(edited);
+                update(edited);
+            }
+            return matching.size();
+        }
+
+        public int deleteWhere(Predicate<? super Recipe> where) {
+            checkOpen();
+            List<Recipe> matching = new ArrayList<>();
+            for (Recipe recipe : recipes) {
+                if (where.test(recipe)) {
+                    matching.add(recipe);
+                }
+            }
+            // Highest slot first, so a swap-remove never moves a recipe that is still to go
+            for (int i = matching.size() - 1; i >= 0; i--) {
+                delete(matching.get(i).getId());
+            }
+            return matching.size();
+        }
+
+        private void checkOpen() {
+            if (!open) {
+                throw new IllegalStateException("Batch is no longer open");
+            }
+        }
+
+        private void rollBack() {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                undo.get(i).run();
+            }
+            undo.clear();
+            records.clear();
+        }
+    }
+
+    // Adds the recovered catalog and journals every later mutation. The recovered recipes
+    // go in through addRecipes, so they show up and can be edited while the rest is still
+    // loading. Whatever changed before the journal took over (recipes added before
+    // storage was opened or during the load, recovered ones edited or deleted meanwhile)
+    // is journaled under the write lock, so no concurrent change falls in between. Their
+    // text is indexed last, after the whole catalog is listed.
+    void openStorage(RecipeJournal journal, Collection<Recipe> recovered) throws IOException {
+        addRecipes(recovered, false);
+        Set<Recipe> unchanged = Collections.newSetFromMap(new IdentityHashMap<>(recovered.size()));
+        unchanged.addAll(recovered);
+
+        lock.writeLock().lock();
+        try {
+            journal.attach(this);
+            this.journal = journal;
+            // Stored recipes are replaced, never changed in place, so an edited one is a new object
+            for (Recipe recipe : recipes) {
+                if (!unchanged.contains(recipe)) {
+                    journal.recordAdd(recipe);
+                }
+            }
+            for (Recipe recipe : recovered) {
+                if (findRecipeById(recipe.getId()) == null) {
+                    journal.recordDelete(recipe.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        indexText();
+    }
+
+    // Brings the text indexes up to every slot, COMMIT_BATCH recipes per write lock hold
+    private void indexText() {
+        boolean behind = true;
+        while (behind) {
+            lock.writeLock().lock();
+            try {
+                int end = Math.min(recipes.size(), textIndexed + COMMIT_BATCH);
+                while (textIndexed < end) {
+                    addText(textIndexed, recipes.get(textIndexed));
+                }
+                behind = textIndexed < recipes.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Immutable point-in-time list of all recipes in slot order. It is safe to read from
+    // any thread without locking and is shared until the next mutation.
+    public List<Recipe> snapshot() {
+        List<Recipe> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            // Under the read lock no mutation can clear it again before it is returned
+            current = Collections.unmodifiableList(Arrays.asList(recipes.toArray(new Recipe[0])));
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Recipe getRecipe(String recipeId) {
+        lock.readLock().lock();
+        try {
+            return findRecipeById(recipeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // For loaders, so recipes meant for this store are encoded into its dictionaries from
+    // the start rather than re-encoded when added
+    ValueDictionary.Scope dictionaries() {
+        return dictionaries;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return recipes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Point-in-time copy of the recipes matching the published filter, in list order
+    List<Recipe> copyMatchingRecipes() {
+        lock.readLock().lock();
+        try {
+            if (activeFilter == null) {
+                return new ArrayList<>(recipes);
+            }
+            List<Recipe> matching = new ArrayList<>(activeMatches.cardinality());
+            for (int slot = activeMatches.nextSetBit(0); slot >= 0; slot = activeMatches.nextSetBit(slot + 1)) {
+                matching.add(recipes.get(slot));
+            }
+            return matching;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Point-in-time list of the recipes matching the filter, in slot order, with the
+    // same semantics as setFilter; a null filter matches everything
+    public List<Recipe> findRecipes(RecipeFilter filter) {
+        if (filter == null) {
+            return snapshot();
+        }
+        String search = normalizedSearch(filter);
+        lock.readLock().lock();
+        try {
+            BitSet matches = searchCandidates(search);
+            attributeIndex.and(matches, filter);
+            List<Recipe> matching = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                matching.add(recipes.get(slot));
+            }
+            return matching;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // How many recipes findRecipes would return, without building the list
+    public int countRecipes(RecipeFilter filter) {
+        if (filter == null) {
+            return size();
+        }
+        String search = normalizedSearch(filter);
+        lock.readLock().lock();
+        try {
+            BitSet matches = searchCandidates(search);
+            attributeIndex.and(matches, filter);
+            return matches.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Up to limit recipes matching the filter, smallest key first (quickest or fewest
+    // servings), ties in slot order. Walks the key's sorted index, starting at the filter's
+    // lower bound for it, and stops once limit recipes are found; nothing is sorted. A null
+    // filter matches everything.
+    public List<Recipe> findRecipesSorted(RecipeFilter filter, SortKey key, int limit) {
+        if (key == null) {
+            throw new IllegalArgumentException("Sort key cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        RecipeFilter constraints = filter == null ? new RecipeFilter() : filter;
+        String search = normalizedSearch(constraints);
+        lock.readLock().lock();
+        try {
+            BitSet matches = searchCandidates(search);
+            attributeIndex.and(matches, constraints);
+            int[] slots = attributeIndex.ascending(key, constraints, matches, limit);
+            List<Recipe> sorted = new ArrayList<>(slots.length);
+            for (int slot : slots) {
+                sorted.add(recipes.get(slot));
+            }
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Up to k recipes ranked by relevance to the query words, best first. Title, ingredients
+    // and instructions all count, a title match the most; misspelled words match their
+    // nearest indexed words. The filter's attribute constraints apply, its search text
+    // does not; a null filter allows every recipe. While storage is still being opened
+    // only the recipes whose text is indexed so far are ranked.
+    public List<SearchHit> searchRanked(String query, RecipeFilter filter, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        long start = Metrics.start();
+        lock.readLock().lock();
+        try {
+            BitSet allowed = null;
+            if (filter != null) {
+                allowed = new BitSet(recipes.size());
+                allowed.set(0, recipes.size());
+                attributeIndex.and(allowed, filter);
+            }
+            List<SearchHit> hits = new ArrayList<>();
+            for (RelevanceIndex.Hit hit : relevanceIndex.top(query, k, allowed)) {
+                hits.add(new SearchHit(recipes.get(hit.slot), hit.score));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+            Metrics.RANKED_SEARCH.stop(start);
+        }
+    }
+
+    // "What can I cook": up to limit recipes needing at least one of the pantry items,
+    // ranked by the share of their ingredients the pantry covers, then by fewest missing.
+    // Pantry items are ingredient names, matched after the same normalization as recipe
+    // ingredients ("Tomatoes" finds "2 ripe tomatoes, diced"); optional ingredients such as
+    // "salt to taste" are never counted as missing. As with searchRanked, recipes whose
+    // text is not indexed yet are not found.
+    public List<PantryMatch> findByPantry(Collection<String> pantry, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        long start = Metrics.start();
+        lock.readLock().lock();
+        try {
+            List<PantryMatch> matches = new ArrayList<>();
+            for (PantryIndex.Match match : pantryIndex.match(pantry, limit)) {
+                matches.add(new PantryMatch(recipes.get(match.slot), match.matched, match.required));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+            Metrics.PANTRY_SEARCH.stop(start);
+        }
+    }
+
+    // The view lists; use them on the view executor's thread only
     public ObservableList<Recipe> getAllRecipes() {
-        return recipes;
+        return readOnlyView;
     }
 
     public FilteredList<Recipe> getFilteredRecipes() {
         return filteredRecipes;
     }
 
+    private void scheduleViewUpdate() {
+        if (viewUpdatePending.compareAndSet(false, true)) {
+            viewExecutor.execute(this::updateView);
+        }
+    }
+
+    private void updateView() {
+        // Cleared first: anything marked after this point schedules another update
+        viewUpdatePending.set(false);
+        if (lock.isWriteLockedByCurrentThread()) {
+            // Run inline from inside a mutation that still holds the write lock: taking
+            // viewLock here could deadlock, and the mutation schedules another update
+            return;
+        }
+        long start = Metrics.start();
+        synchronized (viewLock) {
+            lock.readLock().lock();
+            try {
+                syncView();
+            } finally {
+                lock.readLock().unlock();
+                Metrics.VIEW_UPDATE.stop(start);
+            }
+        }
+    }
+
+    // Copies the dirty slots into the view as one list change. Expects viewLock and at
+    // least the read lock to be held: mutations are shut out, so the filter predicate sees
+    // the slots and matches of exactly this state, and viewDirty is only cleared here.
+    private void syncView() {
+        view.beginBatch();
+        try {
+            int common = Math.min(view.size(), recipes.size());
+            for (int slot = viewDirty.nextSetBit(0); slot >= 0 && slot < common; slot = viewDirty.nextSetBit(slot + 1)) {
+                Recipe recipe = recipes.get(slot);
+                if (view.get(slot) == recipe) {
+                    view.update(slot);
+                } else {
+                    view.set(slot, recipe);
+                }
+            }
+            while (view.size() > recipes.size()) {
+                view.remove(view.size() - 1);
+            }
+            for (int slot = view.size(); slot < recipes.size(); slot++) {
+                view.add(recipes.get(slot));
+            }
+            viewDirty.clear();
+        } finally {
+            view.endBatch();
+        }
+    }
+
     public void setFilter(RecipeFilter filter) {
-        filteredRecipes.setPredicate(recipe -> {
+        publishFilter(evaluateFilter(filter));
+    }
+
+    // Resolves a filter against the indexes, with its facet counts. Safe to call off the
+    // FX thread; the filter must not be modified while this runs.
+    FilterResult evaluateFilter(RecipeFilter filter) {
+        String search = normalizedSearch(filter);
+        long start = Metrics.start();
+        lock.readLock().lock();
+        try {
+            BitSet matches = searchCandidates(search);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            AttributeIndex.Facets facets = attributeIndex.facets(filter == null ? new RecipeFilter() : filter, matches);
             if (filter == null) {
-                return true;
+                return new FilterResult(null, null, null, facets, modCount);
             }
+            attributeIndex.and(matches, filter);
+            if (Metrics.ENABLED) {
+                Metrics.FILTER_MATCHED.add(matches.cardinality());
+                Metrics.FILTER_TOTAL.add(recipes.size());
+            }
+            return new FilterResult(filter, search, matches, facets, modCount);
+        } finally {
+            lock.readLock().unlock();
+            Metrics.FILTER_EVALUATION.stop(start);
+        }
+    }
 
-            boolean matchesDietary = filter.getDietaryRestrictions().isEmpty() ||
-                    recipe.getDietaryRestrictions().containsAll(filter.getDietaryRestrictions());
+    private static String normalizedSearch(RecipeFilter filter) {
+        String searchText = filter == null ? null : filter.getSearchText();
+        return searchText == null || searchText.isEmpty() ? null : SearchIndex.normalize(searchText);
+    }
 
-            boolean matchesCategory = filter.getCategory() == null ||
-                    filter.getCategory().equals(recipe.getCategory());
+    // Slots matching the search text, or all of them; expects the read lock to be held
+    private BitSet searchCandidates(String search) {
+        if (search != null) {
+            BitSet matches = searchIndex.search(search, recipes);
+            // Slots whose text is not indexed yet are checked one by one
+            for (int slot = textIndexed; slot < recipes.size(); slot++) {
+                if (SearchIndex.matches(recipes.get(slot), search)) {
+                    matches.set(slot);
+                }
+            }
+            return matches;
+        }
+        BitSet all = new BitSet(recipes.size());
+        all.set(0, recipes.size());
+        return all;
+    }
 
-            boolean matchesDifficulty = filter.getDifficulty() == null ||
-                    filter.getDifficulty().equals(recipe.getDifficulty());
+    // Swaps in an evaluated filter in one step; must run on the view executor's thread
+    void publishFilter(FilterResult result) {
+        long start = Metrics.start();
+        synchronized (viewLock) {
+            lock.writeLock().lock();
+            try {
+                syncView();
+                if (result.modCount != modCount) {
+                    // The catalog changed while the filter was evaluated off-thread
+                    result = evaluateFilter(result.filter);
+                }
+                activeFilter = result.filter;
+                activeSearch = result.search;
+                activeMatches = result.matches;
+                activeFacets = result.facets;
+                filteredRecipes.setPredicate(activeFilter == null ? null : recipe -> activeMatches.get(recipe.slot));
+            } finally {
+                lock.writeLock().unlock();
+                Metrics.FILTER_PUBLISH.stop(start);
+            }
+        }
+    }
 
-            boolean matchesSearch = filter.getSearchText() == null ||
-                    filter.getSearchText().isEmpty() ||
-                    recipe.getTitle().toLowerCase().contains(filter.getSearchText().toLowerCase()) ||
-                    recipe.getIngredients().toLowerCase().contains(filter.getSearchText().toLowerCase());
+    // Re-evaluates the active filter and facets for one slot before the list change is fired
+    private void refreshMatch(int slot, Recipe recipe) {
+        boolean matchesSearch = activeSearch == null || SearchIndex.matches(recipe, activeSearch);
+        if (activeMatches != null) {
+            activeMatches.set(slot, matchesSearch && attributeIndex.matches(slot, activeFilter));
+        }
+        activeFacets.count(slot, matchesSearch, 1);
+    }
 
-            boolean matchesFavorites = !filter.isShowFavoritesOnly() ||
-                    recipe.isFavorite();
+    // Takes a slot out of the facet counts while it is still indexed as it was
+    private void uncountFacets(int slot) {
+        activeFacets.count(slot, activeSearch == null || SearchIndex.matches(recipes.get(slot), activeSearch), -1);
+    }
 
-            return matchesDietary && matchesCategory && matchesDifficulty && 
-                   matchesSearch && matchesFavorites;
-        });
+    // Facet counts for the published filter, following every change to the catalog
+    public FacetCounts getFacetCounts() {
+        lock.readLock().lock();
+        try {
+            return activeFacets.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public List<Recipe> filterRecipesByDietaryRestriction(String restriction) {
         if (restriction == null || restriction.trim().isEmpty()) {
-            return recipes;
+            return snapshot();
         }
 
-        return recipes.stream()
-                .filter(recipe -> recipe.getDietaryRestrictions().contains(restriction))
-                .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            BitSet slots = attributeIndex.withRestriction(restriction);
+            List<Recipe> result = new ArrayList<>(slots.cardinality());
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                result.add(recipes.get(slot));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void toggleFavorite(String recipeId) {
-        Recipe recipe = findRecipeById(recipeId);
-        if (recipe != null) {
-            recipe.setFavorite(!recipe.isFavorite());
+        long start = Metrics.start();
+        lock.writeLock().lock();
+        try {
+            Recipe existing = findRecipeById(recipeId);
+            if (existing != null) {
+                Recipe edited = existing.copy();
+                edited.setFavorite(!existing.isFavorite());
+                replace(existing.slot, edited);
+                if (journal != null) {
+                    journal.recordFavorite(recipeId, edited.isFavorite());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
+        }
+    }
+
+    // Returns false if there is no recipe with that id
+    public boolean setFavorite(String recipeId, boolean favorite) {
+        long start = Metrics.start();
+        lock.writeLock().lock();
+        try {
+            Recipe existing = findRecipeById(recipeId);
+            if (existing == null) {
+                return false;
+            }
+            if (existing.isFavorite() != favorite) {
+                Recipe edited = existing.copy();
+                edited.setFavorite(favorite);
+                replace(existing.slot, edited);
+                if (journal != null) {
+                    journal.recordFavorite(recipeId, favorite);
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            scheduleViewUpdate();
+            Metrics.MUTATION.stop(start);
         }
     }
 
     private Recipe findRecipeById(String id) {
-        return recipes.stream()
-                .filter(recipe -> recipe.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return id == null ? null : recipesById.get(id);
+    }
+
+    // A filter resolved to the matching slots and facet counts at a given catalog version
+    static class FilterResult {
+        final RecipeFilter filter;
+        final String search;
+        final BitSet matches;
+        final AttributeIndex.Facets facets;
+        final long modCount;
+
+        FilterResult(RecipeFilter filter, String search, BitSet matches, AttributeIndex.Facets facets, long modCount) {
+            this.filter = filter;
+            this.search = search;
+            this.matches = matches;
+            this.facets = facets;
+            this.modCount = modCount;
+        }
+    }
+
+    // How many recipes each filter choice would show, given the rest of the filter. For a
+    // category or difficulty: the recipes matching with that value chosen instead of the
+    // current one. For a dietary restriction and favorites: the matching recipes that
+    // have it, i.e. what ticking it would leave. Values no recipe would match are absent.
+    public static class FacetCounts {
+        private final int total;
+        private final Map<String, Integer> categories;
+        private final Map<String, Integer> difficulties;
+        private final Map<String, Integer> restrictions;
+        private final int favorites;
+
+        FacetCounts(int total, Map<String, Integer> categories, Map<String, Integer> difficulties,
+                Map<String, Integer> restrictions, int favorites) {
+            this.total = total;
+            this.categories = Collections.unmodifiableMap(categories);
+            this.difficulties = Collections.unmodifiableMap(difficulties);
+            this.restrictions = Collections.unmodifiableMap(restrictions);
+            this.favorites = favorites;
+        }
+
+        // Recipes matching the filter as it is
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<String, Integer> getCategoryCounts() {
+            return categories;
+        }
+
+        public Map<String, Integer> getDifficultyCounts() {
+            return difficulties;
+        }
+
+        public Map<String, Integer> getRestrictionCounts() {
+            return restrictions;
+        }
+
+        public int getFavoriteCount() {
+            return favorites;
+        }
+    }
+
+    // Orders for findRecipesSorted
+    public enum SortKey { COOKING_TIME, SERVINGS }
+
+    public static class SearchHit {
+        private final Recipe recipe;
+        private final double score;
+
+        SearchHit(Recipe recipe, double score) {
+            this.recipe = recipe;
+            this.score = score;
+        }
+
+        public Recipe getRecipe() {
+            return recipe;
+        }
+
+        // Only comparable between hits of the same search
+        public double getScore() {
+            return score;
+        }
+    }
+
+    public static class PantryMatch {
+        private final Recipe recipe;
+        private final int matched;
+        private final int required;
+
+        PantryMatch(Recipe recipe, int matched, int required) {
+            this.recipe = recipe;
+            this.matched = matched;
+            this.required = required;
+        }
+
+        public Recipe getRecipe() {
+            return recipe;
+        }
+
+        // Required ingredients the pantry has
+        public int getMatched() {
+            return matched;
+        }
+
+        public int getMissing() {
+            return required - matched;
+        }
+
+        public double getCoverage() {
+            return matched / (double) required;
+        }
     }
 
     // Helper method to add sample recipes for testing
@@ -155,12 +1093,29 @@ class RecipeFilter {
     private String difficulty;
     private String searchText;
     private boolean showFavoritesOnly;
+    // Inclusive bounds; null leaves that end open
+    private Integer minCookingTimeMinutes;
+    private Integer maxCookingTimeMinutes;
+    private Integer minServings;
+    private Integer maxServings;
 
     public RecipeFilter() {
         this.dietaryRestrictions = FXCollections.observableArrayList();
         this.showFavoritesOnly = false;
     }
 
+    public RecipeFilter(RecipeFilter other) {
+        this.dietaryRestrictions = FXCollections.observableArrayList(other.getDietaryRestrictions());
+        this.category = other.getCategory();
+        this.difficulty = other.getDifficulty();
+        this.searchText = other.getSearchText();
+        this.showFavoritesOnly = other.isShowFavoritesOnly();
+        this.minCookingTimeMinutes = other.getMinCookingTimeMinutes();
+        this.maxCookingTimeMinutes = other.getMaxCookingTimeMinutes();
+        this.minServings = other.getMinServings();
+        this.maxServings = other.getMaxServings();
+    }
+
     // Getters and setters
     public List<String> getDietaryRestrictions() {
         return dietaryRestrictions;
@@ -201,4 +1156,36 @@ class RecipeFilter {
     public void setShowFavoritesOnly(boolean showFavoritesOnly) {
         this.showFavoritesOnly = showFavoritesOnly;
     }
+
+    public Integer getMinCookingTimeMinutes() {
+        return minCookingTimeMinutes;
+    }
+
+    public void setMinCookingTimeMinutes(Integer minCookingTimeMinutes) {
+        this.minCookingTimeMinutes = minCookingTimeMinutes;
+    }
+
+    public Integer getMaxCookingTimeMinutes() {
+        return maxCookingTimeMinutes;
+    }
+
+    public void setMaxCookingTimeMinutes(Integer maxCookingTimeMinutes) {
+        this.maxCookingTimeMinutes = maxCookingTimeMinutes;
+    }
+
+    public Integer getMinServings() {
+        return minServings;
+    }
+
+    public void setMinServings(Integer minServings) {
+        this.minServings = minServings;
+    }
+
+    public Integer getMaxServings() {
+        return maxServings;
+    }
+
+    public void setMaxServings(Integer maxServings) {
+        this.maxServings = maxServings;
+    }
 }
@@ -0,0 +1,546 @@
+package com.recipes.app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless HTTP/JSON service over the recipe catalog, on the JDK's built-in server.
+// It has its own entry point and only uses the store classes, so the JavaFX toolkit is
+// never started; only javafx-base needs to be on the class path.
+//
+//   GET    /recipes                 all recipes, or those matching q, category, difficulty,
+//                                   restriction (repeatable), favorites=true and the bounds
+//                                   minTime, maxTime, minServings and maxServings, as
+//                                   RecipeManager.setFilter would; sort=time or sort=servings
+//                                   lists them smallest first; offset and limit page
+//   POST   /recipes                 add; body is one recipe object as in JSON Lines imports
+//   GET    /recipes/{id}
+//   PUT    /recipes/{id}            replace
+//   DELETE /recipes/{id}
+//   PUT    /recipes/{id}/favorite   mark as favorite; DELETE to unmark
+//   GET    /stats                   request count and p50/p99/max latency per endpoint
+//
+// Requests run on a fixed pool sized for CPU-bound handlers: reads take the store's
+// read lock only briefly and lists are serialized from a snapshot while streaming.
+// When the queue is full the accepting thread runs the request itself, which stops
+// it from accepting more until the pool catches up.
+//
+// Usage: java -cp target/classes:<javafx-base jar> com.recipes.app.RecipeServer
+//        [--port 8080] [--threads 2 x cores] [--report seconds between latency reports, 0 = off]
+class RecipeServer {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BACKLOG = 1024;
+    private static final int MAX_BODY = 1 << 20;
+    private static final int OUTPUT_BUFFER = 1 << 16;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private enum Route { LIST, GET, ADD, UPDATE, DELETE, FAVORITE, STATS }
+
+    private final RecipeManager recipeManager;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final Map<Route, LatencyHistogram> latency = new EnumMap<>(Route.class);
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService reporter;
+
+    RecipeServer(RecipeManager recipeManager, InetSocketAddress address, int threads) throws IOException {
+        this.recipeManager = recipeManager;
+        for (Route route : Route.values()) {
+            latency.put(route, new LatencyHistogram());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "recipe-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.prestartAllCoreThreads();
+        server = HttpServer.create(address, BACKLOG);
+        server.createContext("/recipes", this::handleRecipes);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int reportSeconds = 60;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            int value = Integer.parseInt(args[++i]);
+            switch (option) {
+                case "--port":
+                    port = value;
+                    break;
+                case "--threads":
+                    threads = value;
+                    break;
+                case "--report":
+                    reportSeconds = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        RecipeManager recipeManager = RecipeManager.withoutView();
+        RecipeJournal journal = new RecipeJournal(AppPaths.dataDirectory());
+        recipeManager.openStorage(journal, journal.recover(recipeManager.dictionaries()));
+        if (recipeManager.size() == 0) {
+            recipeManager.addSampleRecipes();
+        }
+
+        RecipeServer server = new RecipeServer(recipeManager, new InetSocketAddress(port), threads);
+        server.start(reportSeconds);
+        Metrics.publish();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            server.report(System.out);
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing recipe storage: " + e.getMessage());
+            }
+        }, "recipe-server-shutdown"));
+        System.out.printf("Serving %,d recipes on port %d with %d threads%n",
+            recipeManager.size(), server.port(), threads);
+    }
+
+    void start(int reportSeconds) {
+        server.start();
+        if (reportSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "recipe-http-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long[] reported = {0};
+            reporter.scheduleAtFixedRate(() -> {
+                long total = totalRequests();
+                if (total != reported[0]) {
+                    reported[0] = total;
+                    report(System.out);
+                }
+            }, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // Stops accepting, gives requests in flight a second to finish
+    void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void report(PrintStream out) {
+        for (Route route : Route.values()) {
+            LatencyHistogram histogram = latency.get(route);
+            if (histogram.count() > 0) {
+                out.printf("%-8s %s%n", route, histogram.summary());
+            }
+        }
+    }
+
+    private long totalRequests() {
+        long total = 0;
+        for (LatencyHistogram histogram : latency.values()) {
+            total += histogram.count();
+        }
+        return total;
+    }
+
+    private void handleRecipes(HttpExchange exchange) {
+        long start = System.nanoTime();
+        Route route = null;
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            String method = exchange.getRequestMethod();
+            String[] parts = path.equals("/recipes") || path.equals("/recipes/")
+                ? new String[0]
+                : path.startsWith("/recipes/") ? path.substring("/recipes/".length()).split("/", -1) : null;
+            if (parts == null || parts.length > 2 || parts.length == 2 && !parts[1].equals("favorite")) {
+                throw new RequestException(404, "Not found");
+            }
+
+            if (parts.length == 0) {
+                if (method.equals("GET")) {
+                    route = Route.LIST;
+                    list(exchange);
+                } else if (method.equals("POST")) {
+                    route = Route.ADD;
+                    add(exchange);
+                } else {
+                    throw notAllowed(exchange, "GET, POST");
+                }
+                return;
+            }
+
+            String id = decodeSegment(parts[0]);
+            if (parts.length == 2) {
+                if (!method.equals("PUT") && !method.equals("DELETE")) {
+                    throw notAllowed(exchange, "PUT, DELETE");
+                }
+                route = Route.FAVORITE;
+                if (!recipeManager.setFavorite(id, method.equals("PUT"))) {
+                    throw new RequestException(404, "No such recipe: " + id);
+                }
+                sendEmpty(exchange, 204);
+            } else if (method.equals("GET")) {
+                route = Route.GET;
+                Recipe recipe = recipeManager.getRecipe(id);
+                if (recipe == null) {
+                    throw new RequestException(404, "No such recipe: " + id);
+                }
+                sendRecipe(exchange, 200, recipe);
+            } else if (method.equals("PUT")) {
+                route = Route.UPDATE;
+                update(exchange, id);
+            } else if (method.equals("DELETE")) {
+                route = Route.DELETE;
+                if (!recipeManager.deleteRecipeIfPresent(id)) {
+                    throw new RequestException(404, "No such recipe: " + id);
+                }
+                sendEmpty(exchange, 204);
+            } else {
+                throw notAllowed(exchange, "GET, PUT, DELETE");
+            }
+        } catch (RequestException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            // The client went away; nothing left to tell it
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+            if (route != null) {
+                latency.get(route).record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    // Streams the matching recipes as a JSON array while serializing them
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int offset = intParameter(query, "offset", 0);
+        int limit = intParameter(query, "limit", Integer.MAX_VALUE);
+        RecipeFilter filter = toFilter(query);
+        RecipeManager.SortKey sortKey = sortKey(query);
+        List<Recipe> recipes;
+        int total;
+        if (sortKey == null) {
+            recipes = recipeManager.findRecipes(filter);
+            total = recipes.size();
+        } else {
+            // Only the sorted index entries up to the end of the page are walked; saturated
+            // so a large offset plus the default limit does not overflow
+            int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            recipes = wanted == 0 ? Collections.emptyList() : recipeManager.findRecipesSorted(filter, sortKey, wanted);
+            // A short result is the whole match; otherwise count separately, which a write
+            // between the two calls can make differ by the recipes it changed
+            total = recipes.size() < wanted ? recipes.size() : recipeManager.countRecipes(filter);
+        }
+
+        int from = Math.min(offset, recipes.size());
+        int to = (int) Math.min((long) from + limit, recipes.size());
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(total));
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), OUTPUT_BUFFER)) {
+            StringBuilder json = new StringBuilder(1024);
+            char[] chars = new char[1024];
+            out.write('[');
+            for (int i = from; i < to; i++) {
+                json.setLength(0);
+                if (i > from) {
+                    json.append(',');
+                }
+                RecipeJson.appendRecipe(json, recipes.get(i));
+                if (chars.length < json.length()) {
+                    chars = new char[Math.max(json.length(), 2 * chars.length)];
+                }
+                json.getChars(0, json.length(), chars, 0);
+                out.write(chars, 0, json.length());
+            }
+            out.write(']');
+        }
+    }
+
+    private void add(HttpExchange exchange) throws IOException {
+        Recipe recipe = RecipeImporter.toRecipe(readObject(exchange), recipeManager.dictionaries());
+        try {
+            recipeManager.addRecipe(recipe);
+        } catch (IllegalArgumentException e) {
+            // Checked by addRecipe under its lock, so two POSTs of one id cannot both pass
+            if (recipeManager.getRecipe(recipe.getId()) != null) {
+                throw new RequestException(409, "Recipe already exists: " + recipe.getId());
+            }
+            throw e;
+        }
+        exchange.getResponseHeaders().set("Location", "/recipes/" + recipe.getId());
+        sendRecipe(exchange, 201, recipe);
+    }
+
+    private void update(HttpExchange exchange, String id) throws IOException {
+        Map<String, Object> fields = readObject(exchange);
+        Object bodyId = fields.get("id");
+        if (bodyId != null && !id.equals(bodyId)) {
+            throw new IllegalArgumentException("Recipe id in the body does not match the path");
+        }
+        fields.put("id", id);
+        Recipe recipe = RecipeImporter.toRecipe(fields, recipeManager.dictionaries());
+        if (!recipeManager.updateRecipeIfPresent(recipe)) {
+            throw new RequestException(404, "No such recipe: " + id);
+        }
+        sendRecipe(exchange, 200, recipe);
+    }
+
+    private void handleStats(HttpExchange exchange) {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                throw notAllowed(exchange, "GET");
+            }
+            StringBuilder json = new StringBuilder(512);
+            json.append("{\"recipes\":").append(recipeManager.size())
+                .append(",\"threads\":").append(executor.getCorePoolSize())
+                .append(",\"queued\":").append(executor.getQueue().size())
+                .append(",\"uptimeSeconds\":").append((System.nanoTime() - startNanos) / 1_000_000_000L)
+                .append(",\"latency\":{");
+            boolean first = true;
+            for (Route route : Route.values()) {
+                LatencyHistogram histogram = latency.get(route);
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('"').append(route.name().toLowerCase(Locale.ROOT)).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"p50Ms\":").append(histogram.percentile(0.50) / 1000.0)
+                    .append(",\"p99Ms\":").append(histogram.percentile(0.99) / 1000.0)
+                    .append(",\"maxMs\":").append(histogram.max() / 1000.0)
+                    .append('}');
+            }
+            json.append("}}");
+            send(exchange, 200, json);
+        } catch (RequestException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            exchange.close();
+            latency.get(Route.STATS).record(System.nanoTime() - start);
+        }
+    }
+
+    private static RecipeFilter toFilter(Map<String, List<String>> query) {
+        RecipeFilter filter = null;
+        for (Map.Entry<String, List<String>> parameter : query.entrySet()) {
+            String name = parameter.getKey();
+            if (name.equals("offset") || name.equals("limit") || name.equals("sort")) {
+                continue;
+            }
+            if (filter == null) {
+                filter = new RecipeFilter();
+            }
+            String value = parameter.getValue().get(parameter.getValue().size() - 1);
+            switch (name) {
+                case "q":
+                    filter.setSearchText(value);
+                    break;
+                case "category":
+                    filter.setCategory(value);
+                    break;
+                case "difficulty":
+                    filter.setDifficulty(value);
+                    break;
+                case "restriction":
+                    filter.getDietaryRestrictions().addAll(parameter.getValue());
+                    break;
+                case "favorites":
+                    filter.setShowFavoritesOnly(parseFlag(name, value));
+                    break;
+                case "minTime":
+                    filter.setMinCookingTimeMinutes(intParameter(query, name, 0));
+                    break;
+                case "maxTime":
+                    filter.setMaxCookingTimeMinutes(intParameter(query, name, 0));
+                    break;
+                case "minServings":
+                    filter.setMinServings(intParameter(query, name, 0));
+                    break;
+                case "maxServings":
+                    filter.setMaxServings(intParameter(query, name, 0));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown parameter: " + name);
+            }
+        }
+        return filter;
+    }
+
+    private static RecipeManager.SortKey sortKey(Map<String, List<String>> query) {
+        List<String> values = query.get("sort");
+        if (values == null) {
+            return null;
+        }
+        String value = values.get(values.size() - 1);
+        switch (value) {
+            case "time":
+                return RecipeManager.SortKey.COOKING_TIME;
+            case "servings":
+                return RecipeManager.SortKey.SERVINGS;
+            default:
+                throw new IllegalArgumentException("sort must be time or servings");
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = decode(equals < 0 ? pair : pair.substring(0, equals));
+            String value = equals < 0 ? "" : decode(pair.substring(equals + 1));
+            query.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+        }
+        return query;
+    }
+
+    private static int intParameter(Map<String, List<String>> query, String name, int defaultValue) {
+        List<String> values = query.get(name);
+        if (values == null) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(values.get(values.size() - 1));
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " cannot be negative");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    private static boolean parseFlag(String name, String value) {
+        if (value.equalsIgnoreCase("true") || value.equals("1")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false") || value.equals("0")) {
+            return false;
+        }
+        throw new IllegalArgumentException(name + " must be true or false");
+    }
+
+    // Form decoding, for query parameters: '+' is a space
+    private static String decode(String text) {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8);
+    }
+
+    // Path segments only decode %XX: a '+' there is a plus, as in an id like "a+b"
+    private static String decodeSegment(String segment) {
+        return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> readObject(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY + 1);
+        }
+        if (body.length > MAX_BODY) {
+            throw new RequestException(413, "Request body larger than " + MAX_BODY + " bytes");
+        }
+        return RecipeJson.parseObject(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static RequestException notAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return new RequestException(405, "Method not allowed");
+    }
+
+    private static void sendRecipe(HttpExchange exchange, int status, Recipe recipe) throws IOException {
+        send(exchange, status, RecipeJson.appendRecipe(new StringBuilder(1024), recipe));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            // Part of the response is already out; closing the exchange cuts it short
+            return;
+        }
+        StringBuilder json = new StringBuilder("{\"error\":");
+        RecipeJson.appendString(json, message);
+        try {
+            send(exchange, status, json.append('}'));
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    // A request that fails with a specific status
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.recipes.app;
+
+// Id -> recipe lookup that keeps no keys of its own: an open-addressing table of
+// recipes, probed by id hash and compared against each recipe's compact id. A HashMap
+// would hold an entry object and a decoded id String per recipe.
+final class RecipeTable {
+    private Recipe[] table = new Recipe[16];
+    private int size;
+
+    Recipe get(String id) {
+        if (id == null) {
+            return null;
+        }
+        RecipeId key = RecipeId.parse(id);
+        int mask = table.length - 1;
+        for (int i = key.hashCode() & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].hasId(key)) {
+                return table[i];
+            }
+        }
+        return null;
+    }
+
+    boolean containsIdOf(Recipe recipe) {
+        int mask = table.length - 1;
+        for (int i = recipe.idHash() & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].hasSameId(recipe)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds the recipe, replacing any recipe with the same id
+    void put(Recipe recipe) {
+        if ((size + 1) * 2 > table.length) {
+            resize(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int i = recipe.idHash() & mask;
+        while (table[i] != null) {
+            if (table[i].hasSameId(recipe)) {
+                table[i] = recipe;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = recipe;
+        size++;
+    }
+
+    Recipe remove(String id) {
+        if (id == null) {
+            return null;
+        }
+        RecipeId key = RecipeId.parse(id);
+        int mask = table.length - 1;
+        for (int i = key.hashCode() & mask; table[i] != null; i = (i + 1) & mask) {
+            Recipe recipe = table[i];
+            if (recipe.hasId(key)) {
+                table[i] = null;
+                size--;
+                closeGap(i);
+                return recipe;
+            }
+        }
+        return null;
+    }
+
+    // Backward-shift deletion: moves later entries of the probe run into the hole so
+    // lookups never stop early at it
+    private void closeGap(int hole) {
+        int mask = table.length - 1;
+        for (int i = (hole + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+            int home = table[i].idHash() & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                table[i] = null;
+                hole = i;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        Recipe[] old = table;
+        table = new Recipe[capacity];
+        int mask = capacity - 1;
+        for (Recipe recipe : old) {
+            if (recipe != null) {
+                int i = recipe.idHash() & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = recipe;
+            }
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Word index over title, ingredients and instructions for ranked search, keyed by slot.
+// Postings hold DocIds, so deletes and edits never shift them.
+//
+// Scoring is BM25F: a term's frequency in each field is length-normalized and weighted
+// (a title hit counts most), the fields are summed, then saturated and scaled by idf.
+// Top-k uses MaxScore: postings are walked in doc id order into a bounded heap, and once
+// the heap is full, terms whose combined best case cannot beat its weakest hit no longer
+// produce candidates and are only looked up for documents the other terms found.
+//
+// Query words missing from the vocabulary are treated as typos and replaced by the
+// vocabulary words sharing the most padded trigrams with them.
+class RelevanceIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double[] FIELD_WEIGHTS = {3.0, 1.5, 1.0};
+    private static final int FIELDS = FIELD_WEIGHTS.length;
+    // Per-field term frequencies are packed into one int: 10, 11 and 11 bits
+    private static final int[] TF_SHIFT = {0, 10, 21};
+    private static final int[] TF_MAX = {(1 << 10) - 1, (1 << 11) - 1, (1 << 11) - 1};
+
+    private static final double MIN_SIMILARITY = 0.5;
+    private static final int MAX_EXPANSIONS = 3;
+
+    // Vocabulary; a word keeps its id after its last posting goes, so it can come back cheaply
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Postings> postings = new ArrayList<>();
+    // Distinct trigrams per word, for typo similarity
+    private final List<Integer> gramCounts = new ArrayList<>();
+    private final Map<String, SearchIndex.SlotList> termsByGram = new HashMap<>();
+
+    private final DocIds docs = new DocIds();
+    // Per doc id; totalLengths only counts live ones
+    private int[][] docTerms = new int[16][];
+    private int[][] lengths = new int[FIELDS][16];
+    private final long[] totalLengths = new long[FIELDS];
+
+    void add(int slot, Recipe recipe) {
+        index(docs.add(slot), recipe);
+    }
+
+    void update(int slot, Recipe recipe) {
+        clear(docs.docOf(slot));
+        index(docs.replace(slot), recipe);
+        compactIfNeeded();
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        clear(docs.docOf(slot));
+        docs.remove(slot);
+        compactIfNeeded();
+    }
+
+    private void index(int doc, Recipe recipe) {
+        ensureCapacity(doc + 1);
+        Map<Integer, int[]> counts = new LinkedHashMap<>();
+        String[] fields = {recipe.getTitle(), recipe.scanIngredients(), recipe.scanInstructions()};
+        for (int field = 0; field < FIELDS; field++) {
+            int length = 0;
+            for (String word : words(fields[field])) {
+                counts.computeIfAbsent(termId(word), id -> new int[FIELDS])[field]++;
+                length++;
+            }
+            lengths[field][doc] = length;
+            totalLengths[field] += length;
+        }
+        int[] ids = new int[counts.size()];
+        int i = 0;
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            ids[i++] = entry.getKey();
+            postings.get(entry.getKey()).add(doc, pack(entry.getValue()));
+        }
+        docTerms[doc] = ids;
+    }
+
+    // Takes a doc id out of the statistics; its postings stay until compaction
+    private void clear(int doc) {
+        for (int id : docTerms[doc]) {
+            postings.get(id).live--;
+        }
+        for (int field = 0; field < FIELDS; field++) {
+            totalLengths[field] -= lengths[field][doc];
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (!docs.shouldCompact()) {
+            return;
+        }
+        int count = docs.count();
+        int[] renumbered = docs.compact();
+        for (Postings list : postings) {
+            list.renumber(renumbered);
+        }
+        for (int doc = 0; doc < count; doc++) {
+            int to = renumbered[doc];
+            if (to != DocIds.DEAD) {
+                docTerms[to] = docTerms[doc];
+                for (int field = 0; field < FIELDS; field++) {
+                    lengths[field][to] = lengths[field][doc];
+                }
+            }
+        }
+        Arrays.fill(docTerms, docs.count(), count, null);
+    }
+
+    // Up to k slots scoring above zero, best first (equal scores in the order the recipes
+    // were indexed). When allowed is given, only those slots are considered.
+    List<Hit> top(String query, int k, BitSet allowed) {
+        List<QueryTerm> queryTerms = queryTerms(query);
+        int size = docs.size();
+        if (queryTerms.isEmpty() || size == 0) {
+            return new ArrayList<>();
+        }
+        // Ascending best case: the cheapest terms are the first to stop producing candidates
+        queryTerms.sort((a, b) -> Double.compare(a.bound, b.bound));
+        int n = queryTerms.size();
+        double[] boundBelow = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            boundBelow[i + 1] = boundBelow[i] + queryTerms.get(i).bound;
+        }
+        double[] averages = new double[FIELDS];
+        for (int field = 0; field < FIELDS; field++) {
+            averages[field] = Math.max(1.0, totalLengths[field] / (double) size);
+        }
+
+        TopK heap = new TopK(k);
+        double[] parts = new double[n];
+        int firstEssential = 0;
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < n; i++) {
+                QueryTerm term = queryTerms.get(i);
+                if (term.cursor < term.postings.size) {
+                    doc = Math.min(doc, term.postings.docs[term.cursor]);
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+            Arrays.fill(parts, 0);
+            double score = 0;
+            for (int i = firstEssential; i < n; i++) {
+                QueryTerm term = queryTerms.get(i);
+                if (term.cursor < term.postings.size && term.postings.docs[term.cursor] == doc) {
+                    parts[i] = term.score(doc, term.postings.tfs[term.cursor], averages);
+                    score += parts[i];
+                    term.cursor++;
+                }
+            }
+            int slot = docs.slotOf(doc);
+            if (slot == DocIds.DEAD || allowed != null && !allowed.get(slot)) {
+                continue;
+            }
+            for (int i = firstEssential - 1; i >= 0 && score + boundBelow[i + 1] > heap.threshold(); i--) {
+                QueryTerm term = queryTerms.get(i);
+                term.cursor = term.postings.seek(term.cursor, doc);
+                if (term.cursor < term.postings.size && term.postings.docs[term.cursor] == doc) {
+                    parts[i] = term.score(doc, term.postings.tfs[term.cursor], averages);
+                    score += parts[i];
+                }
+            }
+            // Summed again in term order: which terms were essential changes as the heap
+            // fills, and equal documents must get bit-for-bit equal scores to tie
+            score = 0;
+            for (double part : parts) {
+                score += part;
+            }
+            if (heap.offer(doc, score)) {
+                while (firstEssential < n && boundBelow[firstEssential + 1] <= heap.threshold()) {
+                    firstEssential++;
+                }
+            }
+        }
+        return heap.drain(docs);
+    }
+
+    // Exact vocabulary words where they exist, typo candidates where they do not
+    private List<QueryTerm> queryTerms(String query) {
+        Map<Integer, Double> weights = new LinkedHashMap<>();
+        for (String word : words(query)) {
+            Integer id = termIds.get(word);
+            if (id != null && postings.get(id).live > 0) {
+                weights.merge(id, 1.0, Math::max);
+            } else {
+                for (Map.Entry<Integer, Double> similar : similarTerms(word).entrySet()) {
+                    weights.merge(similar.getKey(), similar.getValue(), Math::max);
+                }
+            }
+        }
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (Map.Entry<Integer, Double> entry : weights.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            double idf = Math.log(1 + (docs.size() - list.live + 0.5) / (list.live + 0.5));
+            queryTerms.add(new QueryTerm(list, idf * entry.getValue()));
+        }
+        return queryTerms;
+    }
+
+    // Up to MAX_EXPANSIONS indexed words with a trigram Dice similarity of at least
+    // MIN_SIMILARITY, mapped to that similarity
+    private Map<Integer, Double> similarTerms(String word) {
+        List<String> grams = gramsOf(word);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            SearchIndex.SlotList ids = termsByGram.get(gram);
+            if (ids != null) {
+                for (int i = 0; i < ids.size; i++) {
+                    shared.merge(ids.slots[i], 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<Integer, Double>> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            int id = entry.getKey();
+            if (postings.get(id).live == 0) {
+                continue;
+            }
+            double similarity = 2.0 * entry.getValue() / (grams.size() + gramCounts.get(id));
+            if (similarity >= MIN_SIMILARITY) {
+                candidates.add(Map.entry(id, similarity));
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        Map<Integer, Double> similar = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Double> candidate : candidates.subList(0, Math.min(MAX_EXPANSIONS, candidates.size()))) {
+            similar.put(candidate.getKey(), candidate.getValue());
+        }
+        return similar;
+    }
+
+    private int termId(String word) {
+        Integer id = termIds.get(word);
+        if (id == null) {
+            id = terms.size();
+            termIds.put(word, id);
+            terms.add(word);
+            postings.add(new Postings());
+            List<String> grams = gramsOf(word);
+            gramCounts.add(grams.size());
+            for (String gram : grams) {
+                termsByGram.computeIfAbsent(gram, g -> new SearchIndex.SlotList()).add(id);
+            }
+        }
+        return id;
+    }
+
+    // Lowercased runs of letters and digits, at least two characters, not all digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        boolean letters = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    letters = false;
+                }
+                letters |= Character.isLetter(c);
+            } else if (start >= 0) {
+                if (letters && i - start >= 2) {
+                    words.add(text.substring(start, i).toLowerCase());
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Distinct trigrams of the word padded with '$' at both ends; a word of n characters
+    // has n of them when none repeats
+    private static List<String> gramsOf(String word) {
+        String padded = "$" + word + "$";
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + SearchIndex.GRAM <= padded.length(); i++) {
+            String gram = padded.substring(i, i + SearchIndex.GRAM);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    private static int pack(int[] counts) {
+        int packed = 0;
+        for (int field = 0; field < FIELDS; field++) {
+            packed |= Math.min(counts[field], TF_MAX[field]) << TF_SHIFT[field];
+        }
+        return packed;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docTerms.length) {
+            int newLength = Math.max(capacity, docTerms.length * 2);
+            docTerms = Arrays.copyOf(docTerms, newLength);
+            for (int field = 0; field < FIELDS; field++) {
+                lengths[field] = Arrays.copyOf(lengths[field], newLength);
+            }
+        }
+    }
+
+    static class Hit {
+        final int slot;
+        final double score;
+
+        Hit(int slot, double score) {
+            this.slot = slot;
+            this.score = score;
+        }
+    }
+
+    private class QueryTerm {
+        final Postings postings;
+        final double weight;
+        // Saturation keeps a term's contribution below weight * (K1 + 1)
+        final double bound;
+        int cursor;
+
+        QueryTerm(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+            this.bound = weight * (K1 + 1);
+        }
+
+        double score(int doc, int packedTf, double[] averages) {
+            double tf = 0;
+            for (int field = 0; field < FIELDS; field++) {
+                int count = (packedTf >>> TF_SHIFT[field]) & TF_MAX[field];
+                if (count > 0) {
+                    double norm = 1 - B + B * lengths[field][doc] / averages[field];
+                    tf += FIELD_WEIGHTS[field] * count / norm;
+                }
+            }
+            return weight * tf * (K1 + 1) / (tf + K1);
+        }
+    }
+
+    // Doc ids containing a term, sorted, each with its packed per-field frequencies.
+    // live counts the ids that are not tombstones: the term's document frequency.
+    private static class Postings {
+        int[] docs = new int[2];
+        int[] tfs = new int[2];
+        int size;
+        int live;
+
+        // Doc ids are handed out in increasing order, so this is always an append
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+
+        // Maps each id through DocIds.compact's result, dropping the tombstones
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc != DocIds.DEAD) {
+                    docs[kept] = doc;
+                    tfs[kept] = tfs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(2, size * 2));
+                tfs = Arrays.copyOf(tfs, docs.length);
+            }
+        }
+
+        // Position of the first doc id at or after target, searching from position from:
+        // gallops ahead, then binary-searches the last step
+        int seek(int from, int target) {
+            int step = 1;
+            int low = from;
+            while (from < size && docs[from] < target) {
+                low = from + 1;
+                from += step;
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(docs, low, Math.min(from + 1, size), target);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    // Bounded min-heap of the k best (doc id, score) pairs seen so far
+    private static class TopK {
+        private final int[] docs;
+        private final double[] scores;
+        private int size;
+
+        TopK(int k) {
+            docs = new int[k];
+            scores = new double[k];
+        }
+
+        // Score a new doc id has to beat to get in; ids arrive in increasing order, so
+        // an equal score loses to the hit already kept
+        double threshold() {
+            return size < docs.length ? 0 : scores[0];
+        }
+
+        // True when the threshold may have changed
+        boolean offer(int doc, double score) {
+            if (score <= threshold()) {
+                return false;
+            }
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+                return size == docs.length;
+            }
+            docs[0] = doc;
+            scores[0] = score;
+            siftDown(0);
+            return true;
+        }
+
+        // Best first, mapped to slots; empties the heap
+        List<Hit> drain(DocIds ids) {
+            Hit[] hits = new Hit[size];
+            while (size > 0) {
+                hits[size - 1] = new Hit(ids.slotOf(docs[0]), scores[0]);
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new ArrayList<>(Arrays.asList(hits));
+        }
+
+        // Lower score is worse; on equal scores the later doc id is
+        private boolean worse(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && docs[a] > docs[b]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && worse(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(child + 1, child)) {
+                    child++;
+                }
+                if (!worse(child, i)) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.recipes.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Inverted index over lowercased title and ingredient text, keyed by slot.
+// Terms are character trigrams so that a substring query can be answered by
+// intersecting posting lists and then verifying the (few) candidates against the
+// recipes' own text; the index keeps no copy of it. Postings hold DocIds, so deletes
+// and edits never shift them, and an edit only needs the new text.
+//
+// A text shorter than a trigram is indexed under itself. Every term then lies within
+// its text and every substring of up to GRAM characters lies within some term, so a
+// query that short is answered exactly by the terms containing it.
+class SearchIndex {
+    static final int GRAM = 3;
+
+    private final Map<String, SlotList> postings = new HashMap<>();
+    private final DocIds docs = new DocIds();
+    private int size;
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    void add(int slot, Recipe recipe) {
+        index(docs.add(slot), recipe);
+        size = Math.max(size, slot + 1);
+    }
+
+    void update(int slot, Recipe recipe) {
+        index(docs.replace(slot), recipe);
+        compactIfNeeded();
+    }
+
+    // Swap-remove, mirroring RecipeManager: the last slot moves into the freed one
+    void remove(int slot) {
+        docs.remove(slot);
+        size--;
+        compactIfNeeded();
+    }
+
+    private void index(int doc, Recipe recipe) {
+        Set<String> terms = new HashSet<>();
+        termsOf(normalize(recipe.getTitle()), terms);
+        termsOf(normalize(recipe.scanIngredients()), terms);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> new SlotList()).add(doc);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (!docs.shouldCompact()) {
+            return;
+        }
+        int[] renumbered = docs.compact();
+        Iterator<SlotList> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            SlotList list = lists.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                lists.remove();
+            }
+        }
+    }
+
+    // Same semantics as a case-insensitive contains() on title or ingredients; query
+    // must be normalized
+    static boolean matches(Recipe recipe, String query) {
+        return normalize(recipe.getTitle()).contains(query) || normalize(recipe.scanIngredients()).contains(query);
+    }
+
+    // The slots whose recipe matches the normalized query; recipes is the slot list
+    // this index follows, used to verify candidates
+    BitSet search(String query, List<Recipe> recipes) {
+        BitSet result = new BitSet(size);
+        if (query.length() < GRAM) {
+            for (Map.Entry<String, SlotList> entry : postings.entrySet()) {
+                if (entry.getKey().contains(query)) {
+                    SlotList list = entry.getValue();
+                    for (int i = 0; i < list.size; i++) {
+                        int slot = docs.slotOf(list.slots[i]);
+                        if (slot != DocIds.DEAD) {
+                            result.set(slot);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        List<SlotList> lists = new ArrayList<>();
+        for (String gram : termsOf(query, new HashSet<>())) {
+            SlotList list = postings.get(gram);
+            if (list == null) {
+                return result;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainAll(candidates, count);
+        }
+        // A query that is one trigram matches exactly the texts having it
+        boolean verify = query.length() > GRAM;
+        for (int i = 0; i < count; i++) {
+            int slot = docs.slotOf(candidates[i]);
+            if (slot != DocIds.DEAD && (!verify || matches(recipes.get(slot), query))) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    // The text's trigrams, or the text itself when it is shorter but not empty
+    private static Set<String> termsOf(String text, Set<String> terms) {
+        if (text.length() < GRAM) {
+            if (!text.isEmpty()) {
+                terms.add(text);
+            }
+            return terms;
+        }
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            terms.add(text.substring(i, i + GRAM));
+        }
+        return terms;
+    }
+
+    // Sorted, duplicate-free list of slots or doc ids
+    static class SlotList {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            // New slots are always the highest, so adds are almost always appends
+            int pos = size == 0 || slots[size - 1] < slot ? size : Arrays.binarySearch(slots, 0, size, slot);
+            if (pos >= 0 && pos < size) {
+                return;
+            }
+            pos = pos < 0 ? -pos - 1 : pos;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+            slots[pos] = slot;
+            size++;
+        }
+
+        // Maps each id through DocIds.compact's result, dropping the tombstones
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int id = renumbered[slots[i]];
+                if (id != DocIds.DEAD) {
+                    slots[kept++] = id;
+                }
+            }
+            size = kept;
+            if (size < slots.length / 4) {
+                slots = Arrays.copyOf(slots, Math.max(4, size * 2));
+            }
+        }
+
+        // Keeps only the candidates that are also in this list; returns the new count
+        int retainAll(int[] candidates, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count; i++) {
+                int pos = Arrays.binarySearch(slots, from, size, candidates[i]);
+                if (pos >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            return kept;
+        }
+    }
+}
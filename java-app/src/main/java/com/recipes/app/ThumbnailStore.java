@@ -0,0 +1,201 @@
+package com.recipes.app;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Card-size JPEG thumbnails in a single append-only pack file, read through a
+// memory mapping. The index (URL hash -> entry offset) is rebuilt from the entry
+// headers on open, and a torn entry at the end of the file is cut off. The file and
+// its mapping grow geometrically, so most puts write into space that is already
+// mapped; the zero padding past the last entry is cut off on close or, after a crash,
+// on the next open.
+//
+// Pack layout: MAGIC, VERSION, then entries of
+//   long key | int width | int height | int length | length bytes of JPEG
+class ThumbnailStore implements AutoCloseable {
+    private static final int MAGIC = 0x5254484D; // "RTHM"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int ENTRY_HEADER = 20;
+    private static final long MIN_CAPACITY = 1 << 20;
+
+    private final FileChannel channel;
+    private final Map<Long, Long> offsets = new HashMap<>();
+    private MappedByteBuffer mapped;
+    // End of the last entry, and the length of the file and the mapping
+    private long size;
+    private long capacity;
+
+    ThumbnailStore(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < FILE_HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+        }
+        size = channel.size();
+        remap(size);
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Not a thumbnail pack: " + file);
+        }
+        loadIndex();
+    }
+
+    synchronized boolean contains(String url) {
+        return offsets.containsKey(keyOf(url));
+    }
+
+    // Decodes a stored thumbnail, or returns null when the URL has none
+    Image get(String url) {
+        ByteBuffer bytes;
+        synchronized (this) {
+            Long offset = offsets.get(keyOf(url));
+            if (offset == null) {
+                return null;
+            }
+            int length = mapped.getInt((int) (offset + 16));
+            bytes = mapped.duplicate();
+            bytes.position((int) (offset + ENTRY_HEADER)).limit((int) (offset + ENTRY_HEADER + length));
+        }
+        Image image = new Image(new ByteBufferInputStream(bytes));
+        return image.isError() ? null : image;
+    }
+
+    void put(String url, Image image) throws IOException {
+        byte[] jpeg = encode(image);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER + jpeg.length);
+        entry.putLong(keyOf(url)).putInt((int) image.getWidth()).putInt((int) image.getHeight())
+            .putInt(jpeg.length).put(jpeg);
+        entry.flip();
+
+        synchronized (this) {
+            long key = keyOf(url);
+            if (offsets.containsKey(key)) {
+                return;
+            }
+            long end = size + entry.remaining();
+            if (end > Integer.MAX_VALUE) {
+                // The pack is mapped as a single buffer; stop growing at 2 GB
+                return;
+            }
+            if (end > capacity) {
+                remap(Math.min(Math.max(end, Math.max(capacity * 2, MIN_CAPACITY)), Integer.MAX_VALUE));
+            }
+            long offset = size;
+            while (entry.hasRemaining()) {
+                channel.write(entry, offset + entry.position());
+            }
+            size += entry.limit();
+            offsets.put(key, offset);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            channel.truncate(size);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        long offset = FILE_HEADER;
+        while (offset + ENTRY_HEADER <= size) {
+            int length = mapped.getInt((int) (offset + 16));
+            // A zero length is the padding past the last entry
+            if (length <= 0 || offset + ENTRY_HEADER + length > size) {
+                break;
+            }
+            offsets.put(mapped.getLong((int) offset), offset);
+            offset += ENTRY_HEADER + length;
+        }
+        if (offset != size) {
+            channel.truncate(offset);
+            size = offset;
+            remap(size);
+        }
+    }
+
+    // Maps the first length bytes, extending the file with zeros when it is shorter
+    private void remap(long length) throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        capacity = length;
+    }
+
+    private static long keyOf(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] encode(Image image) throws IOException {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] argb = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argb, 0, width);
+        // JPEG has no alpha, so flatten onto white
+        for (int i = 0; i < argb.length; i++) {
+            int alpha = argb[i] >>> 24;
+            if (alpha != 0xFF) {
+                int r = blend((argb[i] >> 16) & 0xFF, alpha);
+                int g = blend((argb[i] >> 8) & 0xFF, alpha);
+                int b = blend(argb[i] & 0xFF, alpha);
+                argb[i] = (r << 16) | (g << 8) | b;
+            }
+        }
+        BufferedImage buffered = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        buffered.setRGB(0, 0, width, height, argb, 0, width);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(buffered, "jpg", out)) {
+            throw new IOException("No JPEG writer available");
+        }
+        return out.toByteArray();
+    }
+
+    private static int blend(int channel, int alpha) {
+        return (channel * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.recipes.app;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary for a low-cardinality recipe field. Recipes store the small code instead
+// of their own String, so a million "Dinner"s share one instance. Codes are never
+// reused. Looking up a known value takes no lock; only a new value does, and the code
+// table grows by doubling, so adding n values copies O(n) entries in total. Encode and
+// decode may be called from any thread.
+final class ValueDictionary {
+    static final int NONE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Each new entry is written before the volatile write that publishes it
+    private volatile String[] values = new String[8];
+    private int size;
+
+    private ValueDictionary(String... known) {
+        for (String value : known) {
+            encode(value);
+        }
+    }
+
+    int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    // The dictionaries of one store. Each RecipeManager has its own, so values that only
+    // one catalog ever held go away with it; recipes not yet in any store use SHARED,
+    // and a store re-encodes a recipe into its own scope when the recipe is added.
+    static final class Scope {
+        static final Scope SHARED = new Scope();
+
+        final ValueDictionary categories = new ValueDictionary(
+            "Breakfast", "Lunch", "Dinner", "Dessert", "Snack", "Appetizer");
+        final ValueDictionary difficulties = new ValueDictionary("Easy", "Medium", "Hard");
+        final ValueDictionary restrictions = new ValueDictionary(
+            "Vegan", "Vegetarian", "Gluten-Free", "Dairy-Free");
+    }
+}
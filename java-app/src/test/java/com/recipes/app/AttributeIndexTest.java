@@ -0,0 +1,110 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AttributeIndexTest {
+    // Well past the 64 codes that fit a slot's first mask word
+    private static final int RESTRICTIONS = 150;
+
+    @Test
+    void filtersAndCountsManyDistinctRestrictions() {
+        Random random = new Random(11);
+        RecipeManager manager = new RecipeManager();
+        for (int i = 0; i < 500; i++) {
+            manager.addRecipe(randomRecipe(random));
+        }
+
+        for (int round = 0; round < 200; round++) {
+            RecipeFilter filter = new RecipeFilter();
+            filter.getDietaryRestrictions().add(randomRestriction(random));
+            String second = randomRestriction(random);
+            if (random.nextInt(3) == 0 && !filter.getDietaryRestrictions().contains(second)) {
+                filter.getDietaryRestrictions().add(second);
+            }
+            manager.setFilter(filter);
+
+            // The active filter's facets are kept up to date slot by slot from here on
+            for (int i = 0; i < 10; i++) {
+                List<Recipe> current = manager.snapshot();
+                Recipe target = current.get(random.nextInt(current.size()));
+                int operation = random.nextInt(3);
+                if (operation == 0) {
+                    Recipe edited = target.copy();
+                    edited.setDietaryRestrictions(new ArrayList<>(filter.getDietaryRestrictions()));
+                    edited.addDietaryRestriction(randomRestriction(random));
+                    manager.updateRecipe(edited);
+                } else if (operation == 1) {
+                    manager.deleteRecipe(target.getId());
+                } else {
+                    manager.addRecipe(randomRecipe(random));
+                }
+            }
+            verify(manager, filter);
+        }
+    }
+
+    @Test
+    void unknownCategoryOrDifficultyDoesNotMatchRecipesWithout() {
+        RecipeManager manager = new RecipeManager();
+        manager.addRecipe(new Recipe("Toast", "Bread", "Toast it"));
+        RecipeFilter byCategory = new RecipeFilter();
+        byCategory.setCategory("Midnight snack");
+        RecipeFilter byDifficulty = new RecipeFilter();
+        byDifficulty.setDifficulty("Impossible");
+
+        for (RecipeFilter filter : List.of(byCategory, byDifficulty)) {
+            manager.setFilter(filter);
+            // Neither recipe has a category or difficulty; these go through the live match
+            Recipe soup = new Recipe("Soup", "Water", "Boil");
+            manager.addRecipe(soup);
+            Recipe edited = soup.copy();
+            edited.setServings(2);
+            manager.updateRecipe(edited);
+
+            assertEquals(List.of(), manager.getFilteredRecipes());
+            assertEquals(List.of(), manager.findRecipes(filter));
+            assertEquals(0, manager.countRecipes(filter));
+            assertEquals(0, manager.getFacetCounts().getTotal());
+        }
+    }
+
+    private static void verify(RecipeManager manager, RecipeFilter filter) {
+        List<Recipe> expected = new ArrayList<>();
+        Map<String, Integer> restrictionCounts = new HashMap<>();
+        for (Recipe recipe : manager.snapshot()) {
+            if (recipe.getDietaryRestrictions().containsAll(filter.getDietaryRestrictions())) {
+                expected.add(recipe);
+                for (String restriction : recipe.getDietaryRestrictions()) {
+                    restrictionCounts.merge(restriction, 1, Integer::sum);
+                }
+            }
+        }
+        assertEquals(expected, manager.findRecipes(filter));
+        assertEquals(new HashSet<>(expected), new HashSet<>(manager.getFilteredRecipes()));
+        RecipeManager.FacetCounts facets = manager.getFacetCounts();
+        assertEquals(expected.size(), facets.getTotal());
+        assertEquals(restrictionCounts, facets.getRestrictionCounts());
+    }
+
+    private static Recipe randomRecipe(Random random) {
+        Recipe recipe = new Recipe("Recipe", "Rice", "Cook");
+        for (int i = random.nextInt(5); i > 0; i--) {
+            recipe.addDietaryRestriction(randomRestriction(random));
+        }
+        return recipe;
+    }
+
+    // A few restrictions come up often, so filters on them match more than one recipe
+    private static String randomRestriction(Random random) {
+        int code = random.nextBoolean() ? random.nextInt(8) : random.nextInt(RESTRICTIONS);
+        return "Restriction " + code;
+    }
+}
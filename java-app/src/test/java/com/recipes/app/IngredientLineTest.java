@@ -0,0 +1,83 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IngredientLineTest {
+    // Line, then one "quantity unit name" entry per ingredient it names; "-" for no quantity
+    // or unit, and a trailing "?" for an optional ingredient
+    private static final String[][] LINES = {
+        // Fractions
+        {"2 1/2 cups fresh cherry tomatoes, halved", "2.5 cup cherry tomato"},
+        {"1/4 cup sugar", "0.25 cup sugar"},
+        {"½ tsp salt", "0.5 tsp salt"},
+        {"1 ½ cups flour", "1.5 cup flour"},
+        {"1½ cups flour", "1.5 cup flour"},
+        {"0.5 kg beef", "0.5 kg beef"},
+        // Ranges count as their lower end
+        {"2-3 cloves garlic, minced", "2 clove garlic"},
+        {"2 to 3 large eggs", "2 - egg"},
+        {"1/2-1 cup milk", "0.5 cup milk"},
+        // Alternatives: the first one names the ingredient
+        {"1 cup milk or cream", "1 cup milk"},
+        {"butter or margarine and flour", "- - butter", "- - flour"},
+        // Splits
+        {"salt and pepper", "- - salt", "- - pepper"},
+        {"2 tbsp oil & vinegar", "2 tbsp oil", "2 tbsp vinegar"},
+        // Optional phrases
+        {"salt and pepper to taste", "- - salt ?", "- - pepper ?"},
+        {"1 tbsp chopped parsley, for garnish", "1 tbsp parsley ?"},
+        {"grated parmesan (optional)", "- - parmesan ?"},
+        {"cheese of choice", "- - cheese ?"},
+        // Plurals and units
+        {"3 potatoes", "3 - potato"},
+        {"2 cups berries", "2 cup berry"},
+        {"1 bunch radishes", "1 bunch radish"},
+        {"4 peaches", "4 - peach"},
+        {"2 lbs chicken thighs", "2 lb chicken thigh"},
+        {"1 can (400 g) chickpeas", "1 can chickpea"},
+        {"1 tablespoon of honey", "1 tbsp honey"},
+        {"hummus", "- - hummus"},
+        {"1 bass", "1 - bass"},
+        // Nothing recognizable
+        {"2"},
+        {""},
+    };
+
+    @Test
+    void parsesQuantitiesUnitsAndNames() {
+        for (String[] row : LINES) {
+            List<String> parsed = new ArrayList<>();
+            for (IngredientLine line : IngredientLine.parseAll(row[0])) {
+                String quantity = Double.isNaN(line.quantity) ? "-" : format(line.quantity);
+                parsed.add(quantity + " " + (line.unit == null ? "-" : line.unit) + " " + line.name
+                    + (line.optional ? " ?" : ""));
+            }
+            assertEquals(Arrays.asList(row).subList(1, row.length), parsed, row[0]);
+        }
+    }
+
+    @Test
+    void parsesEachLineOfARecipe() {
+        List<IngredientLine> lines = IngredientLine.parseAll("2 eggs\n\n1 cup flour\nsalt to taste");
+        assertEquals(3, lines.size());
+        assertEquals("egg", lines.get(0).name);
+        assertEquals("flour", lines.get(1).name);
+        assertEquals("salt", lines.get(2).name);
+    }
+
+    @Test
+    void normalizesPantryItemsLikeIngredients() {
+        assertEquals("tomato", IngredientLine.normalizeName("Tomatoes"));
+        assertEquals("cherry tomato", IngredientLine.normalizeName("fresh cherry tomatoes"));
+        assertEquals(null, IngredientLine.normalizeName("2"));
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,118 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PantryIndexTest {
+    private static final String[] LINES = {
+        "2 cups flour", "1 egg", "3 eggs, beaten", "1 cup milk or cream", "salt and pepper",
+        "salt to taste", "2 tomatoes", "1 ripe tomato, diced", "1 tbsp butter", "butter (optional)",
+        "2 cloves garlic", "1 onion", "2 onions, sliced", "1/2 cup rice", "basil, for garnish",
+        "1 can (400 g) chickpeas", "2-3 potatoes", "lemon juice"
+    };
+    private static final String[] PANTRY = {
+        "Flour", "eggs", "milk", "cream", "salt", "pepper", "tomatoes", "butter", "garlic",
+        "onion", "rice", "basil", "chickpeas", "potato", "lemon juice", "saffron", "2"
+    };
+
+    // Enough edits and deletes to tombstone and compact the doc ids more than once
+    @Test
+    void pantryMatchesScanThroughEdits() {
+        Random random = new Random(31);
+        RecipeManager manager = RecipeManager.withoutView();
+        for (int i = 0; i < 120; i++) {
+            manager.addRecipe(new Recipe("Recipe " + i, ingredients(random), "Cook"));
+        }
+
+        for (int round = 0; round < 3000; round++) {
+            List<Recipe> current = manager.snapshot();
+            Recipe target = current.get(random.nextInt(current.size()));
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Recipe edited = target.copy();
+                edited.setIngredients(ingredients(random));
+                manager.updateRecipe(edited);
+            } else if (operation == 1 && current.size() > 80) {
+                manager.deleteRecipe(target.getId());
+            } else {
+                manager.addRecipe(new Recipe("Added " + round, ingredients(random), "Cook"));
+            }
+
+            if (round % 20 == 0) {
+                List<String> pantry = new ArrayList<>();
+                int items = 1 + random.nextInt(4);
+                for (int i = 0; i < items; i++) {
+                    pantry.add(PANTRY[random.nextInt(PANTRY.length)]);
+                }
+                int limit = 1 + random.nextInt(15);
+                assertEquals(scan(manager.snapshot(), pantry, limit), describe(manager.findByPantry(pantry, limit)),
+                    pantry + ", limit " + limit);
+            }
+        }
+    }
+
+    // Every recipe checked against the pantry: by coverage, then fewest missing, then list order
+    private static List<String> scan(List<Recipe> recipes, List<String> pantry, int limit) {
+        Set<String> have = new HashSet<>();
+        for (String item : pantry) {
+            have.add(IngredientLine.normalizeName(item));
+        }
+        List<int[]> matches = new ArrayList<>();
+        for (int slot = 0; slot < recipes.size(); slot++) {
+            Set<String> required = new LinkedHashSet<>();
+            for (IngredientLine line : IngredientLine.parseAll(recipes.get(slot).getIngredients())) {
+                if (!line.optional) {
+                    required.add(line.name);
+                }
+            }
+            int matched = 0;
+            for (String name : required) {
+                if (have.contains(name)) {
+                    matched++;
+                }
+            }
+            if (matched > 0) {
+                matches.add(new int[] {slot, matched, required.size()});
+            }
+        }
+        matches.sort((a, b) -> {
+            int byCoverage = Long.compare((long) b[1] * a[2], (long) a[1] * b[2]);
+            if (byCoverage != 0) {
+                return byCoverage;
+            }
+            int byMissing = Integer.compare(a[2] - a[1], b[2] - b[1]);
+            return byMissing != 0 ? byMissing : Integer.compare(a[0], b[0]);
+        });
+        List<String> expected = new ArrayList<>();
+        for (int[] match : matches.subList(0, Math.min(limit, matches.size()))) {
+            expected.add(recipes.get(match[0]).getTitle() + " " + match[1] + "/" + match[2]);
+        }
+        return expected;
+    }
+
+    private static List<String> describe(List<RecipeManager.PantryMatch> matches) {
+        List<String> described = new ArrayList<>();
+        for (RecipeManager.PantryMatch match : matches) {
+            described.add(match.getRecipe().getTitle() + " " + match.getMatched() + "/"
+                + (match.getMatched() + match.getMissing()));
+        }
+        return described;
+    }
+
+    private static String ingredients(Random random) {
+        int count = random.nextInt(6);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = LINES[random.nextInt(LINES.length)];
+        }
+        return String.join("\n", Arrays.asList(lines));
+    }
+}
@@ -0,0 +1,116 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RangeIndexTest {
+    private static final String[] CATEGORIES = {"Dinner", "Lunch"};
+
+    @Test
+    void rangeFiltersAndSortedWalksMatchScanThroughEdits() {
+        Random random = new Random(17);
+        RecipeManager manager = RecipeManager.withoutView();
+        for (int i = 0; i < 300; i++) {
+            manager.addRecipe(randomRecipe(random, "Recipe " + i));
+        }
+
+        for (int round = 0; round < 1500; round++) {
+            List<Recipe> current = manager.snapshot();
+            Recipe target = current.get(random.nextInt(current.size()));
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Recipe edited = target.copy();
+                if (random.nextBoolean()) {
+                    edited.setCookingTimeMinutes(randomTime(random));
+                } else {
+                    edited.setServings(randomServings(random));
+                }
+                manager.updateRecipe(edited);
+            } else if (operation == 1 && current.size() > 200) {
+                manager.deleteRecipe(target.getId());
+            } else {
+                manager.addRecipe(randomRecipe(random, "Added " + round));
+            }
+
+            if (round % 10 == 0) {
+                RecipeFilter filter = randomFilter(random);
+                List<Recipe> expected = scan(manager.snapshot(), filter);
+                String context = "time " + filter.getMinCookingTimeMinutes() + ".." + filter.getMaxCookingTimeMinutes()
+                    + ", servings " + filter.getMinServings() + ".." + filter.getMaxServings()
+                    + ", category " + filter.getCategory();
+                assertEquals(expected, manager.findRecipes(filter), context);
+                assertEquals(expected.size(), manager.countRecipes(filter), context);
+
+                int limit = 1 + random.nextInt(random.nextBoolean() ? 10 : 400);
+                // List.sort is stable, so ties stay in slot order
+                List<Recipe> byTime = new ArrayList<>(expected);
+                byTime.sort(Comparator.comparingInt(Recipe::getCookingTimeMinutes));
+                assertEquals(byTime.subList(0, Math.min(limit, byTime.size())),
+                    manager.findRecipesSorted(filter, RecipeManager.SortKey.COOKING_TIME, limit), context + ", limit " + limit);
+                List<Recipe> byServings = new ArrayList<>(expected);
+                byServings.sort(Comparator.comparingInt(Recipe::getServings));
+                assertEquals(byServings.subList(0, Math.min(limit, byServings.size())),
+                    manager.findRecipesSorted(filter, RecipeManager.SortKey.SERVINGS, limit), context + ", limit " + limit);
+            }
+        }
+    }
+
+    private static List<Recipe> scan(List<Recipe> recipes, RecipeFilter filter) {
+        List<Recipe> matching = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (within(recipe.getCookingTimeMinutes(), filter.getMinCookingTimeMinutes(), filter.getMaxCookingTimeMinutes())
+                    && within(recipe.getServings(), filter.getMinServings(), filter.getMaxServings())
+                    && (filter.getCategory() == null || filter.getCategory().equals(recipe.getCategory()))) {
+                matching.add(recipe);
+            }
+        }
+        return matching;
+    }
+
+    private static boolean within(int value, Integer min, Integer max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    // Narrow and wide ranges, open ends, empty ranges and bounds past every value
+    private static RecipeFilter randomFilter(Random random) {
+        RecipeFilter filter = new RecipeFilter();
+        if (random.nextInt(4) > 0) {
+            filter.setMinCookingTimeMinutes(random.nextBoolean() ? randomBound(random, 130) : null);
+            filter.setMaxCookingTimeMinutes(random.nextBoolean() ? randomBound(random, 130) : null);
+        }
+        if (random.nextBoolean()) {
+            filter.setMinServings(random.nextBoolean() ? randomBound(random, 10) : null);
+            filter.setMaxServings(random.nextBoolean() ? randomBound(random, 10) : null);
+        }
+        if (random.nextInt(4) == 0) {
+            filter.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+        return filter;
+    }
+
+    private static int randomBound(Random random, int range) {
+        return random.nextInt(range + 10) - 5;
+    }
+
+    private static Recipe randomRecipe(Random random, String title) {
+        Recipe recipe = new Recipe(title, "Rice", "Cook");
+        recipe.setCookingTimeMinutes(randomTime(random));
+        recipe.setServings(randomServings(random));
+        recipe.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        return recipe;
+    }
+
+    // Multiples of 5, so many recipes share a value
+    private static int randomTime(Random random) {
+        return 5 * random.nextInt(25);
+    }
+
+    private static int randomServings(Random random) {
+        return 1 + random.nextInt(8);
+    }
+}
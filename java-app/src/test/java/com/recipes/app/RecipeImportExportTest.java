@@ -0,0 +1,196 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecipeImportExportTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void jsonLinesRoundTrip() throws Exception {
+        roundTrip(directory.resolve("recipes.jsonl"));
+    }
+
+    @Test
+    void csvRoundTrip() throws Exception {
+        roundTrip(directory.resolve("recipes.csv"));
+    }
+
+    @Test
+    void jsonLinesRejectsMalformedRecords() throws Exception {
+        Recipe existing = recipe("Existing", "Bread", "Bake");
+        Path file = write("import.jsonl",
+            "{\"title\":\"Soup\",\"cookingTimeMinutes\":30}",
+            "{\"title\":\"Broken\"",
+            "",
+            "{\"ingredients\":\"No title\"}",
+            "{\"title\":\"Negative\",\"cookingTimeMinutes\":-5}",
+            "{\"title\":\"Wrong type\",\"servings\":\"four\"}",
+            "{\"title\":\"Restrictions\",\"dietaryRestrictions\":\"Vegan\"}",
+            "{\"title\":\"Numbers\",\"dietaryRestrictions\":[1,2]}",
+            "[\"not\",\"an\",\"object\"]",
+            "{\"id\":\"" + existing.getId() + "\",\"title\":\"Again\"}",
+            "{\"title\":\"Salad\",\"favorite\":true}");
+        RecipeManager manager = RecipeManager.withoutView();
+        manager.addRecipe(existing);
+
+        RecipeImporter.Result result = new RecipeImporter(manager, Runnable::run).importFile(file, null);
+
+        assertEquals(3, result.imported);
+        assertEquals(1, result.duplicates);
+        assertEquals(6, result.rejected);
+        assertEquals(6, result.errors.size());
+        assertTrue(result.errors.get(0).startsWith("Record 2: "), result.errors.get(0));
+        assertTrue(result.errors.get(1).startsWith("Record 4: "), result.errors.get(1));
+        assertEquals("Record 5: cookingTimeMinutes out of range: -5", result.errors.get(2));
+        assertEquals("Record 6: servings must be a whole number", result.errors.get(3));
+        assertEquals(Arrays.asList("Existing", "Restrictions", "Salad", "Soup"), titles(manager));
+        assertEquals(List.of("Vegan"), find(manager, "Restrictions").getDietaryRestrictions());
+        assertEquals("Bread", manager.getRecipe(existing.getId()).getIngredients());
+    }
+
+    @Test
+    void csvRejectsMalformedRecords() throws Exception {
+        Path file = write("import.csv",
+            "\uFEFFtitle,cookingTimeMinutes,favorite,dietaryRestrictions",
+            "Soup,30,false,Vegan;Gluten-Free",
+            "Too,many,fields,here,now",
+            ",10,false,",
+            "Slow,forever,false,",
+            "Starred,5,maybe,",
+            "\"Quoted, with comma\",15,1,");
+        RecipeManager manager = RecipeManager.withoutView();
+
+        RecipeImporter.Result result = new RecipeImporter(manager, Runnable::run).importFile(file, null);
+
+        assertEquals(2, result.imported);
+        assertEquals(4, result.rejected);
+        assertEquals("Record 2: Expected 4 fields but found 5", result.errors.get(0));
+        assertEquals("Record 3: Recipe title cannot be empty", result.errors.get(1));
+        assertEquals("Record 4: cookingTimeMinutes must be a whole number", result.errors.get(2));
+        assertEquals("Record 5: favorite must be true or false", result.errors.get(3));
+        assertEquals(Arrays.asList("Quoted, with comma", "Soup"), titles(manager));
+        assertEquals(Arrays.asList("Vegan", "Gluten-Free"), find(manager, "Soup").getDietaryRestrictions());
+        assertTrue(find(manager, "Quoted, with comma").isFavorite());
+    }
+
+    @Test
+    void csvWithUnterminatedQuoteIsRefused() throws Exception {
+        Path file = write("import.csv", "title,servings", "Soup,2", "\"Unterminated,4");
+        RecipeManager manager = RecipeManager.withoutView();
+
+        assertThrows(IOException.class, () -> new RecipeImporter(manager, Runnable::run).importFile(file, null));
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    void csvWithoutTitleColumnIsRefused() throws Exception {
+        Path file = write("import.csv", "name,servings", "Soup,2");
+        RecipeManager manager = RecipeManager.withoutView();
+
+        assertThrows(IOException.class, () -> new RecipeImporter(manager, Runnable::run).importFile(file, null));
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    void interruptedExportKeepsExistingFile() throws Exception {
+        Path file = write("recipes.jsonl", "previous export");
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            recipes.add(recipe("Recipe " + i, "Flour", "Mix"));
+        }
+
+        // Depending on where it is noticed, the interrupt ends the export with an
+        // InterruptedException or with the channel's ClosedByInterruptException
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(Exception.class, () -> RecipeExporter.export(recipes, file, null));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(List.of("previous export"), Files.readAllLines(file));
+        assertFalse(Files.exists(directory.resolve("recipes.jsonl.tmp")));
+    }
+
+    // Exports recipes with awkward text and every field set or left empty, imports them
+    // into an empty manager and compares field by field
+    private void roundTrip(Path file) throws Exception {
+        List<Recipe> recipes = new ArrayList<>();
+        Recipe quoted = recipe("Grandma's \"best\" pie, v2", "1 cup flour,\n2 eggs\r\n\"a pinch\" of salt", "Bake\tat 180°C");
+        quoted.setCategory("Dessert");
+        quoted.setDifficulty("Hard");
+        quoted.setCookingTimeMinutes(75);
+        quoted.setServings(8);
+        quoted.setFavorite(true);
+        quoted.setImageUrl("https://example.com/pie.jpg?size=large&crop=1");
+        quoted.addDietaryRestriction("Vegetarian");
+        quoted.addDietaryRestriction("Nut-Free");
+        recipes.add(quoted);
+        recipes.add(recipe("Plain", null, null));
+        recipes.add(recipe("Unicode éè 中文 🍜 \\ backslash", "½ tsp — salt", "Stir → serve"));
+        recipes.add(new Recipe("custom-id-7"));
+        recipes.get(3).setTitle("Custom id");
+
+        assertEquals(recipes.size(), RecipeExporter.export(recipes, file, null));
+        RecipeManager manager = RecipeManager.withoutView();
+        RecipeImporter.Result result = new RecipeImporter(manager, Runnable::run).importFile(file, null);
+
+        assertEquals(recipes.size(), result.imported);
+        assertEquals(0, result.rejected, String.valueOf(result.errors));
+        for (Recipe expected : recipes) {
+            Recipe actual = manager.getRecipe(expected.getId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getIngredients(), actual.getIngredients());
+            assertEquals(expected.getInstructions(), actual.getInstructions());
+            assertEquals(expected.getCategory(), actual.getCategory());
+            assertEquals(expected.getDifficulty(), actual.getDifficulty());
+            assertEquals(expected.getCookingTimeMinutes(), actual.getCookingTimeMinutes());
+            assertEquals(expected.getServings(), actual.getServings());
+            assertEquals(expected.isFavorite(), actual.isFavorite());
+            assertEquals(expected.getImageUrl(), actual.getImageUrl());
+            assertEquals(expected.getDietaryRestrictions(), actual.getDietaryRestrictions());
+        }
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> titles(RecipeManager manager) {
+        List<String> titles = new ArrayList<>();
+        for (Recipe recipe : manager.snapshot()) {
+            titles.add(recipe.getTitle());
+        }
+        titles.sort(null);
+        return titles;
+    }
+
+    private static Recipe find(RecipeManager manager, String title) {
+        for (Recipe recipe : manager.snapshot()) {
+            if (recipe.getTitle().equals(title)) {
+                return recipe;
+            }
+        }
+        throw new AssertionError("No recipe titled " + title);
+    }
+
+    private static Recipe recipe(String title, String ingredients, String instructions) {
+        return new Recipe(title, ingredients, instructions);
+    }
+}
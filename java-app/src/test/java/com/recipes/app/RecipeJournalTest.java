@@ -0,0 +1,328 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecipeJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversEverythingWrittenBeforeClose() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+            manager.setFavorite(salad.getId(), true);
+        });
+
+        assertEquals(Arrays.asList("Salad*", "Soup"), recover());
+    }
+
+    @Test
+    void tornTailRecordIsDropped() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+        });
+        Path log = directory.resolve("journal-1.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(Arrays.asList("Soup"), recover());
+
+        // The next session starts a new file instead of appending after the torn record
+        Recipe stew = recipe("Stew");
+        session(manager -> manager.addRecipe(stew));
+        assertTrue(Files.exists(directory.resolve("journal-2.log")));
+        assertEquals(Arrays.asList("Soup", "Stew"), recover());
+    }
+
+    @Test
+    void corruptTailRecordIsDropped() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+        });
+        Path log = directory.resolve("journal-1.log");
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(log, bytes);
+
+        assertEquals(Arrays.asList("Soup"), recover());
+    }
+
+    @Test
+    void replaysJournalOverSnapshot() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        Recipe stew = recipe("Stew");
+        Recipe pie = recipe("Pie");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+            manager.addRecipe(stew);
+        });
+        // As compaction leaves it: generation 2 started, then its snapshot written
+        CatalogFile.write(directory.resolve("snapshot-2.rcat"), Arrays.asList(soup, salad, stew));
+        Files.delete(directory.resolve("journal-1.log"));
+        Files.createFile(directory.resolve("journal-2.log"));
+
+        session(manager -> {
+            Recipe edited = manager.getRecipe(soup.getId()).copy();
+            edited.setTitle("Tomato soup");
+            manager.updateRecipe(edited);
+            manager.deleteRecipe(salad.getId());
+            manager.setFavorite(stew.getId(), true);
+            manager.addRecipe(pie);
+        });
+
+        assertEquals(Arrays.asList("Pie", "Stew*", "Tomato soup"), recover());
+        // A recipe still in the snapshot reads its body from it
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            for (Recipe recipe : journal.recover(new ValueDictionary.Scope())) {
+                if (recipe.getId().equals(stew.getId())) {
+                    assertEquals("Ingredients of Stew", recipe.getIngredients());
+                }
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void crashBetweenSnapshotAndTruncationReplaysOnlyNewerJournals() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+        });
+        // Generation 2 was started and its snapshot written, which already saw the delete
+        // journaled there, but journal-1 was never removed
+        session(manager -> manager.deleteRecipe(salad.getId()));
+        CatalogFile.write(directory.resolve("snapshot-2.rcat"), Arrays.asList(soup));
+        assertTrue(Files.size(directory.resolve("journal-1.log")) > 0);
+
+        assertEquals(Arrays.asList("Soup"), recover());
+        assertFalse(Files.exists(directory.resolve("journal-1.log")));
+        assertTrue(Files.exists(directory.resolve("journal-2.log")));
+    }
+
+    @Test
+    void crashWhileWritingSnapshotIgnoresIt() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        session(manager -> manager.addRecipe(soup));
+        session(manager -> manager.addRecipe(salad));
+        // Snapshot of generation 2 never made it past its temporary file
+        Files.write(directory.resolve("snapshot-2.tmp"), new byte[] {1, 2, 3});
+
+        assertEquals(Arrays.asList("Salad", "Soup"), recover());
+    }
+
+    @Test
+    void changesMadeWhileLoadingAreJournaled() throws IOException {
+        Recipe soup = recipe("Soup");
+        Recipe salad = recipe("Salad");
+        Recipe stew = recipe("Stew");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+            manager.addRecipe(stew);
+        });
+
+        Recipe pie = recipe("Pie");
+        Recipe cake = recipe("Cake");
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            RecipeManager manager = RecipeManager.withoutView();
+            manager.addRecipe(pie);
+            Collection<Recipe> recovered = journal.recover(manager.dictionaries());
+            // Edits the recovered recipes once they are all in, before the journal takes over
+            Collection<Recipe> loading = new AbstractCollection<>() {
+                private boolean edited;
+
+                @Override
+                public Iterator<Recipe> iterator() {
+                    Iterator<Recipe> iterator = recovered.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            boolean more = iterator.hasNext();
+                            if (!more && !edited && manager.size() == 4) {
+                                edited = true;
+                                Recipe renamed = manager.getRecipe(soup.getId()).copy();
+                                renamed.setTitle("Tomato soup");
+                                manager.updateRecipe(renamed);
+                                manager.deleteRecipe(salad.getId());
+                                manager.addRecipe(cake);
+                            }
+                            return more;
+                        }
+
+                        @Override
+                        public Recipe next() {
+                            return iterator.next();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return recovered.size();
+                }
+            };
+            manager.openStorage(journal, loading);
+            assertEquals(Arrays.asList("Cake", "Pie", "Stew", "Tomato soup"), titles(manager.snapshot()));
+        } finally {
+            journal.close();
+        }
+
+        assertEquals(Arrays.asList("Cake", "Pie", "Stew", "Tomato soup"), recover());
+    }
+
+    @Test
+    void searchesFindRecipesWhoseTextIsNotIndexedYet() throws IOException {
+        Recipe soup = new Recipe("Soup", "tomatoes\ngarlic", "Simmer");
+        Recipe salad = new Recipe("Salad", "lettuce\ngarlic", "Toss");
+        Recipe bread = new Recipe("Bread", "flour\nwater", "Bake");
+        session(manager -> {
+            manager.addRecipe(soup);
+            manager.addRecipe(salad);
+            manager.addRecipe(bread);
+        });
+
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            RecipeManager manager = RecipeManager.withoutView();
+            Recipe pie = new Recipe("Pie", "apples\nflour", "Bake");
+            manager.addRecipe(pie);
+            Collection<Recipe> recovered = journal.recover(manager.dictionaries());
+            List<String> whileLoading = new ArrayList<>();
+            // Searches and edits once every recipe is listed, before any recovered text is indexed
+            Collection<Recipe> loading = new AbstractCollection<>() {
+                @Override
+                public Iterator<Recipe> iterator() {
+                    Iterator<Recipe> iterator = recovered.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            boolean more = iterator.hasNext();
+                            if (!more && whileLoading.isEmpty() && manager.size() == 4) {
+                                whileLoading.add(String.join(",", search(manager, "garlic")));
+                                whileLoading.add(String.join(",", search(manager, "flour")));
+                                Recipe plain = manager.getRecipe(salad.getId()).copy();
+                                plain.setIngredients("lettuce");
+                                manager.updateRecipe(plain);
+                                // Moves the last, unindexed recipe into the indexed slot
+                                manager.deleteRecipe(pie.getId());
+                                whileLoading.add(String.join(",", search(manager, "flour")));
+                                whileLoading.add(String.join(",", search(manager, "garlic")));
+                            }
+                            return more;
+                        }
+
+                        @Override
+                        public Recipe next() {
+                            return iterator.next();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return recovered.size();
+                }
+            };
+            manager.openStorage(journal, loading);
+            assertEquals(Arrays.asList("Salad,Soup", "Bread,Pie", "Bread", "Soup"), whileLoading);
+
+            assertEquals(Arrays.asList("Soup"), search(manager, "garlic"));
+            assertEquals(Arrays.asList("Bread"), search(manager, "flour"));
+            assertEquals(Arrays.asList("Soup"), titles(hits(manager.searchRanked("garlic", null, 10))));
+            assertEquals(Arrays.asList("Bread"), titles(hits(manager.searchRanked("flour", null, 10))));
+            List<Recipe> cooks = new ArrayList<>();
+            for (RecipeManager.PantryMatch match : manager.findByPantry(Arrays.asList("garlic", "apples"), 10)) {
+                cooks.add(match.getRecipe());
+            }
+            assertEquals(Arrays.asList("Soup"), titles(cooks));
+        } finally {
+            journal.close();
+        }
+    }
+
+    // One run of the app: recovers, applies the mutations and shuts the journal down
+    private void session(Consumer<RecipeManager> mutations) throws IOException {
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            RecipeManager manager = RecipeManager.withoutView();
+            Collection<Recipe> recovered = journal.recover(manager.dictionaries());
+            manager.openStorage(journal, recovered);
+            mutations.accept(manager);
+        } finally {
+            journal.close();
+        }
+    }
+
+    // Recovered titles in title order, with * marking favorites
+    private List<String> recover() throws IOException {
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            return titles(journal.recover(new ValueDictionary.Scope()));
+        } finally {
+            journal.close();
+        }
+    }
+
+    private static List<String> search(RecipeManager manager, String text) {
+        RecipeFilter filter = new RecipeFilter();
+        filter.setSearchText(text);
+        return titles(manager.findRecipes(filter));
+    }
+
+    private static List<Recipe> hits(List<RecipeManager.SearchHit> hits) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (RecipeManager.SearchHit hit : hits) {
+            recipes.add(hit.getRecipe());
+        }
+        return recipes;
+    }
+
+    private static List<String> titles(Collection<Recipe> recipes) {
+        List<String> titles = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            titles.add(recipe.getTitle() + (recipe.isFavorite() ? "*" : ""));
+        }
+        Collections.sort(titles);
+        return titles;
+    }
+
+    private static Recipe recipe(String title) {
+        return new Recipe(title, "Ingredients of " + title, "Instructions for " + title);
+    }
+}
@@ -0,0 +1,207 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecipeManagerBatchTest {
+    private static final String[] WORDS = {"pasta", "Tomato", "basil", "garlic", "Egg", "rice", "Bean", "chili", "oil", "salt"};
+    private static final String[] CATEGORIES = {"Breakfast", "Lunch", "Dinner", "Snack", null};
+    private static final String[] RESTRICTIONS = {"Vegan", "Vegetarian", "Gluten-Free", "Dairy-Free"};
+    private static final int BATCH_SIZE = 20;
+
+    @TempDir
+    Path directory;
+
+    // Random batches of adds, edits, deletes and favorite changes, a third of which fail
+    // part way; a failed one must leave the catalog, its order, the indexes and the views
+    // exactly as they were, and any batch must reach the views as at most one change
+    @Test
+    void failedBatchesRollBackExactly() {
+        Random random = new Random(7);
+        RecipeManager manager = new RecipeManager();
+        for (int i = 0; i < 1000; i++) {
+            manager.addRecipe(randomRecipe(random));
+        }
+        int[] changes = new int[2];
+        manager.getAllRecipes().addListener((ListChangeListener<Recipe>) change -> changes[0]++);
+        manager.getFilteredRecipes().addListener((ListChangeListener<Recipe>) change -> changes[1]++);
+        RecipeFilter filter = new RecipeFilter();
+
+        int failed = 0;
+        for (int round = 0; round < 300; round++) {
+            if (round % 25 == 0) {
+                filter = randomFilter(random);
+                manager.setFilter(filter);
+            }
+            List<Recipe> before = new ArrayList<>(manager.getAllRecipes());
+            List<String> contents = contents(before);
+            boolean fail = random.nextInt(3) == 0;
+            int failAt = random.nextInt(BATCH_SIZE);
+            changes[0] = 0;
+            changes[1] = 0;
+
+            try {
+                manager.applyBatch(batch -> {
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        if (fail && i == failAt) {
+                            if (random.nextBoolean()) {
+                                throw new IllegalStateException("Failure inside the batch");
+                            }
+                            batch.add(new Recipe(" ", "", ""));
+                        }
+                        randomMutation(random, manager, batch);
+                    }
+                });
+                assertFalse(fail, "Batch should have failed in round " + round);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                if (!fail) {
+                    throw e;
+                }
+                failed++;
+                assertEquals(before, new ArrayList<>(manager.getAllRecipes()), "Order after rollback in round " + round);
+                assertEquals(contents, contents(new ArrayList<>(manager.getAllRecipes())),
+                    "Contents after rollback in round " + round);
+            }
+
+            assertTrue(changes[0] <= 1 && changes[1] <= 1, "Change events in round " + round);
+            verifyIndexes(manager, filter);
+        }
+        assertTrue(failed > 0);
+    }
+
+    @Test
+    void failedBatchIsNotJournaled() throws IOException {
+        Recipe soup = new Recipe("Soup", "Tomato", "Simmer");
+        RecipeJournal journal = new RecipeJournal(directory);
+        try {
+            RecipeManager manager = RecipeManager.withoutView();
+            manager.openStorage(journal, journal.recover(manager.dictionaries()));
+            manager.addRecipe(soup);
+            assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(batch -> {
+                batch.delete(soup.getId());
+                batch.add(new Recipe("Salad", "Lettuce", "Toss"));
+                batch.add(new Recipe("", "", ""));
+            }));
+            assertEquals(1, manager.size());
+        } finally {
+            journal.close();
+        }
+
+        RecipeJournal reopened = new RecipeJournal(directory);
+        try {
+            List<String> titles = new ArrayList<>();
+            for (Recipe recipe : reopened.recover(new ValueDictionary.Scope())) {
+                titles.add(recipe.getTitle());
+            }
+            assertEquals(List.of("Soup"), titles);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static void randomMutation(Random random, RecipeManager manager, RecipeManager.Batch batch) {
+        List<Recipe> current = manager.snapshot();
+        int operation = current.isEmpty() ? 0 : random.nextInt(7);
+        switch (operation) {
+            case 1:
+                batch.delete(pick(random, current).getId());
+                break;
+            case 2:
+                Recipe edited = pick(random, current).copy();
+                edited.setTitle(WORDS[random.nextInt(WORDS.length)] + "ic");
+                edited.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                batch.update(edited);
+                break;
+            case 3:
+                batch.setFavorite(pick(random, current).getId(), random.nextBoolean());
+                break;
+            case 4:
+                String prefix = WORDS[random.nextInt(WORDS.length)];
+                batch.updateWhere(recipe -> recipe.getTitle().startsWith(prefix),
+                    recipe -> recipe.setFavorite(!recipe.isFavorite()));
+                break;
+            case 5:
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length - 1)];
+                String suffix = WORDS[random.nextInt(WORDS.length)];
+                batch.deleteWhere(recipe -> category.equals(recipe.getCategory()) && recipe.getTitle().endsWith(suffix));
+                break;
+            default:
+                batch.add(randomRecipe(random));
+        }
+    }
+
+    // The filtered view and findRecipes against a scan of every recipe, and every
+    // recipe's slot against its position
+    private static void verifyIndexes(RecipeManager manager, RecipeFilter filter) {
+        List<Recipe> all = manager.getAllRecipes();
+        List<Recipe> expected = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            Recipe recipe = all.get(i);
+            assertEquals(i, recipe.slot);
+            if (matches(recipe, filter)) {
+                expected.add(recipe);
+            }
+        }
+        assertEquals(new HashSet<>(expected), new HashSet<>(manager.getFilteredRecipes()));
+        assertEquals(expected, manager.findRecipes(filter));
+    }
+
+    private static boolean matches(Recipe recipe, RecipeFilter filter) {
+        String search = filter.getSearchText() == null ? null : filter.getSearchText().toLowerCase();
+        return recipe.getDietaryRestrictions().containsAll(filter.getDietaryRestrictions())
+            && (filter.getCategory() == null || filter.getCategory().equals(recipe.getCategory()))
+            && (search == null || recipe.getTitle().toLowerCase().contains(search)
+                || recipe.getIngredients().toLowerCase().contains(search))
+            && (!filter.isShowFavoritesOnly() || recipe.isFavorite());
+    }
+
+    private static List<String> contents(List<Recipe> recipes) {
+        List<String> contents = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            contents.add(recipe + " " + recipe.isFavorite() + " " + recipe.getIngredients());
+        }
+        return contents;
+    }
+
+    private static Recipe randomRecipe(Random random) {
+        Recipe recipe = new Recipe(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+            WORDS[random.nextInt(WORDS.length)] + "\n" + WORDS[random.nextInt(WORDS.length)], "Cook");
+        recipe.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        if (random.nextBoolean()) {
+            recipe.addDietaryRestriction(RESTRICTIONS[random.nextInt(RESTRICTIONS.length)]);
+        }
+        recipe.setDifficulty(random.nextBoolean() ? "Easy" : "Hard");
+        return recipe;
+    }
+
+    private static RecipeFilter randomFilter(Random random) {
+        RecipeFilter filter = new RecipeFilter();
+        if (random.nextBoolean()) {
+            filter.setSearchText(WORDS[random.nextInt(WORDS.length)].substring(0, 3));
+        }
+        if (random.nextBoolean()) {
+            filter.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length - 1)]);
+        }
+        if (random.nextBoolean()) {
+            filter.getDietaryRestrictions().add(RESTRICTIONS[random.nextInt(RESTRICTIONS.length)]);
+        }
+        filter.setShowFavoritesOnly(random.nextInt(3) == 0);
+        return filter;
+    }
+
+    private static Recipe pick(Random random, List<Recipe> recipes) {
+        return recipes.get(random.nextInt(recipes.size()));
+    }
+}
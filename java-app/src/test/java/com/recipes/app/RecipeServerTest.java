@@ -0,0 +1,138 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecipeServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RecipeManager manager;
+    private RecipeServer server;
+    // In insertion order, cooking times 50, 40, 30, 20 and 10 minutes
+    private final List<Recipe> recipes = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        manager = RecipeManager.withoutView();
+        for (int i = 0; i < 5; i++) {
+            Recipe recipe = new Recipe("Recipe " + i, "Rice", "Cook");
+            recipe.setCookingTimeMinutes(50 - 10 * i);
+            recipe.setCategory(i % 2 == 0 ? "Dinner" : "Lunch");
+            manager.addRecipe(recipe);
+            recipes.add(recipe);
+        }
+        server = new RecipeServer(manager, new InetSocketAddress("127.0.0.1", 0), 2);
+        server.start(0);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void listsFilteredAndSortedPages() throws Exception {
+        assertList(send("GET", "/recipes", null), 5, 0, 1, 2, 3, 4);
+        assertList(send("GET", "/recipes?offset=1&limit=2", null), 5, 1, 2);
+        assertList(send("GET", "/recipes?offset=9", null), 5);
+        assertList(send("GET", "/recipes?limit=0", null), 5);
+        assertList(send("GET", "/recipes?category=Dinner&maxTime=35", null), 2, 2, 4);
+        assertList(send("GET", "/recipes?sort=time&limit=2", null), 5, 4, 3);
+        assertList(send("GET", "/recipes?sort=time&offset=3&limit=10", null), 5, 1, 0);
+        assertList(send("GET", "/recipes?sort=time&minTime=20&offset=1&limit=1", null), 4, 2);
+        // offset plus the default limit would overflow an int
+        assertList(send("GET", "/recipes?sort=time&offset=2147483647", null), 5);
+        // '+' is a space in a query
+        assertList(send("GET", "/recipes?q=recipe+3", null), 1, 3);
+    }
+
+    @Test
+    void mapsFailuresToStatusCodes() throws Exception {
+        assertEquals(404, send("GET", "/recipes/no-such-id", null).statusCode());
+        assertEquals(404, send("DELETE", "/recipes/no-such-id", null).statusCode());
+        assertEquals(404, send("PUT", "/recipes/no-such-id", "{\"title\":\"Soup\"}").statusCode());
+        assertEquals(404, send("GET", "/recipes/a/b/c", null).statusCode());
+        assertEquals(404, send("GET", "/recipes/" + recipes.get(0).getId() + "/other", null).statusCode());
+
+        String id = recipes.get(0).getId();
+        assertEquals(409, send("POST", "/recipes", "{\"id\":\"" + id + "\",\"title\":\"Copy\"}").statusCode());
+        assertEquals(400, send("POST", "/recipes", "{\"title\":\" \"}").statusCode());
+        assertEquals(400, send("POST", "/recipes", "not json").statusCode());
+        assertEquals(400, send("PUT", "/recipes/" + id, "{\"id\":\"other\",\"title\":\"Soup\"}").statusCode());
+        assertEquals(400, send("GET", "/recipes?limit=-1", null).statusCode());
+        assertEquals(400, send("GET", "/recipes?offset=many", null).statusCode());
+        assertEquals(400, send("GET", "/recipes?sort=title", null).statusCode());
+        assertEquals(400, send("GET", "/recipes?colour=red", null).statusCode());
+        assertEquals(405, send("DELETE", "/recipes", null).statusCode());
+        assertEquals(5, manager.size());
+    }
+
+    @Test
+    void addsUpdatesAndDeletes() throws Exception {
+        HttpResponse<String> added = send("POST", "/recipes", "{\"id\":\"a+b c\",\"title\":\"Soup\",\"servings\":2}");
+        assertEquals(201, added.statusCode());
+        assertEquals("a+b c", manager.getRecipe("a+b c").getId());
+
+        // In a path segment '+' stays a plus; only %XX is decoded
+        assertEquals(200, send("GET", "/recipes/a+b%20c", null).statusCode());
+        assertEquals(200, send("GET", "/recipes/a%2Bb%20c", null).statusCode());
+        assertEquals(404, send("GET", "/recipes/a%20b%20c", null).statusCode());
+
+        HttpResponse<String> updated = send("PUT", "/recipes/a+b%20c", "{\"title\":\"Stew\",\"servings\":4}");
+        assertEquals(200, updated.statusCode());
+        assertEquals("Stew", manager.getRecipe("a+b c").getTitle());
+        assertEquals(4, manager.getRecipe("a+b c").getServings());
+
+        assertEquals(204, send("DELETE", "/recipes/a+b%20c", null).statusCode());
+        assertEquals(null, manager.getRecipe("a+b c"));
+    }
+
+    @Test
+    void marksAndUnmarksFavorites() throws Exception {
+        String id = recipes.get(3).getId();
+        assertEquals(204, send("PUT", "/recipes/" + id + "/favorite", null).statusCode());
+        assertTrue(manager.getRecipe(id).isFavorite());
+        assertList(send("GET", "/recipes?favorites=true", null), 1, 3);
+
+        assertEquals(204, send("DELETE", "/recipes/" + id + "/favorite", null).statusCode());
+        assertFalse(manager.getRecipe(id).isFavorite());
+        assertList(send("GET", "/recipes?favorites=true", null), 0);
+
+        assertEquals(404, send("PUT", "/recipes/no-such-id/favorite", null).statusCode());
+        assertEquals(405, send("GET", "/recipes/" + id + "/favorite", null).statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // A 200 listing the recipes with the given indexes, in that order, out of total matches
+    private void assertList(HttpResponse<String> response, int total, int... indexes) {
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < indexes.length; i++) {
+            if (i > 0) {
+                expected.append(',');
+            }
+            RecipeJson.appendRecipe(expected, manager.getRecipe(recipes.get(indexes[i]).getId()));
+        }
+        String context = response.request().uri().toString();
+        assertEquals(200, response.statusCode(), context);
+        assertEquals(String.valueOf(total), response.headers().firstValue("X-Total-Count").orElse(null), context);
+        assertEquals(expected.append(']').toString(), response.body(), context);
+    }
+}
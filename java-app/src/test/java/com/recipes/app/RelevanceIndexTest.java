@@ -0,0 +1,265 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class RelevanceIndexTest {
+    private static final String[] WORDS = {
+        "tomato", "tomatoes", "potato", "basil", "garlic", "onion", "onions", "butter",
+        "bread", "flour", "sugar", "salt", "pepper", "lemon", "melon", "chicken",
+        "rice", "pasta", "bake", "boil", "stir", "fry", "slice", "chop"
+    };
+    private static final String[] CATEGORIES = {"Dinner", "Lunch", "Dessert"};
+    // Shared texts, so equal scores are common and their order is checked
+    private static final String[][] TEMPLATES = {
+        {"Garlic bread", "bread butter garlic", "slice bake"},
+        {"Tomato pasta", "pasta tomatoes basil salt", "boil stir"},
+        {"Lemon rice", "rice lemon salt", "boil"}
+    };
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double[] FIELD_WEIGHTS = {3.0, 1.5, 1.0};
+
+    // Enough edits and deletes to tombstone and compact the doc ids several times
+    @Test
+    void rankedSearchMatchesBruteForceScoringThroughEdits() {
+        Random random = new Random(23);
+        RecipeManager manager = RecipeManager.withoutView();
+        // Indexing sequence per recipe id: equal scores rank in this order
+        Map<String, Long> indexed = new HashMap<>();
+        long sequence = 0;
+        for (int i = 0; i < 150; i++) {
+            Recipe recipe = randomRecipe(random);
+            manager.addRecipe(recipe);
+            indexed.put(recipe.getId(), sequence++);
+        }
+
+        for (int round = 0; round < 3000; round++) {
+            List<Recipe> current = manager.snapshot();
+            Recipe target = current.get(random.nextInt(current.size()));
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                Recipe edited = randomRecipe(random);
+                Recipe copy = target.copy();
+                copy.setTitle(edited.getTitle());
+                copy.setIngredients(edited.getIngredients());
+                copy.setInstructions(edited.getInstructions());
+                manager.updateRecipe(copy);
+                // Setting a template's own strings again leaves nothing to re-index
+                if (!copy.sharesTextWith(target)) {
+                    indexed.put(copy.getId(), sequence++);
+                }
+            } else if (operation == 1) {
+                // Same text, so it keeps its doc id and its place among equal scores
+                Recipe copy = target.copy();
+                copy.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                manager.updateRecipe(copy);
+            } else if (operation == 2 && current.size() > 100) {
+                manager.deleteRecipe(target.getId());
+            } else {
+                Recipe recipe = randomRecipe(random);
+                manager.addRecipe(recipe);
+                indexed.put(recipe.getId(), sequence++);
+            }
+
+            if (round % 25 == 0) {
+                for (int i = 0; i < 6; i++) {
+                    String query = randomQuery(random);
+                    int k = 1 + random.nextInt(12);
+                    RecipeFilter filter = null;
+                    if (random.nextBoolean()) {
+                        filter = new RecipeFilter();
+                        filter.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    }
+                    verify(manager, indexed, query, filter, k);
+                }
+            }
+        }
+    }
+
+    private static void verify(RecipeManager manager, Map<String, Long> indexed, String query,
+            RecipeFilter filter, int k) {
+        List<Recipe> recipes = manager.snapshot();
+        Map<String, Double> weights = queryWeights(recipes, query);
+        if (weights == null) {
+            return;
+        }
+        Map<Recipe, Double> scores = scores(recipes, weights);
+        List<Recipe> expected = new ArrayList<>();
+        for (Map.Entry<Recipe, Double> entry : scores.entrySet()) {
+            Recipe recipe = entry.getKey();
+            if (entry.getValue() > 0 && (filter == null || filter.getCategory().equals(recipe.getCategory()))) {
+                expected.add(recipe);
+            }
+        }
+        expected.sort((a, b) -> {
+            int byScore = Double.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Long.compare(indexed.get(a.getId()), indexed.get(b.getId()));
+        });
+
+        List<RecipeManager.SearchHit> hits = manager.searchRanked(query, filter, k);
+        String context = "query '" + query + "', k " + k + ", filter " + (filter == null ? null : filter.getCategory());
+        assertEquals(Math.min(k, expected.size()), hits.size(), context);
+        for (int i = 0; i < hits.size(); i++) {
+            Recipe hit = hits.get(i).getRecipe();
+            double score = scores.get(expected.get(i));
+            assertTrue(Math.abs(hits.get(i).getScore() - score) <= 1e-9 * score, context + ", rank " + i);
+            // Scores summed in another order may differ in the last bits; those count as equal
+            if (Math.abs(scores.get(hit) - score) > 1e-9 * score) {
+                assertSame(expected.get(i), hit, context + ", rank " + i);
+            } else {
+                assertEquals(indexed.get(expected.get(i).getId()), indexed.get(hit.getId()), context + ", tie at rank " + i);
+            }
+        }
+    }
+
+    // Term weights for the query: 1 for a word some live recipe has, otherwise up to three
+    // similar words weighted by trigram similarity. Null when the typo candidates tie at the
+    // cutoff, since then which ones are taken is up to the index.
+    private static Map<String, Double> queryWeights(List<Recipe> recipes, String query) {
+        Set<String> vocabulary = new LinkedHashSet<>();
+        for (Recipe recipe : recipes) {
+            for (String field : fields(recipe)) {
+                vocabulary.addAll(RelevanceIndex.words(field));
+            }
+        }
+        Map<String, Double> weights = new HashMap<>();
+        for (String word : RelevanceIndex.words(query)) {
+            if (vocabulary.contains(word)) {
+                weights.merge(word, 1.0, Math::max);
+                continue;
+            }
+            List<Map.Entry<String, Double>> candidates = new ArrayList<>();
+            Set<String> grams = grams(word);
+            for (String term : vocabulary) {
+                Set<String> shared = grams(term);
+                shared.retainAll(grams);
+                double similarity = 2.0 * shared.size() / (grams.size() + grams(term).size());
+                if (similarity >= 0.5) {
+                    candidates.add(Map.entry(term, similarity));
+                }
+            }
+            candidates.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+            if (candidates.size() > 3 && candidates.get(2).getValue().equals(candidates.get(3).getValue())) {
+                return null;
+            }
+            for (Map.Entry<String, Double> candidate : candidates.subList(0, Math.min(3, candidates.size()))) {
+                weights.merge(candidate.getKey(), candidate.getValue(), Math::max);
+            }
+        }
+        return weights;
+    }
+
+    // BM25F over the live recipes, from scratch
+    private static Map<Recipe, Double> scores(List<Recipe> recipes, Map<String, Double> weights) {
+        int n = recipes.size();
+        double[] averages = new double[3];
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (Recipe recipe : recipes) {
+            String[] fields = fields(recipe);
+            Set<String> distinct = new LinkedHashSet<>();
+            for (int field = 0; field < 3; field++) {
+                List<String> words = RelevanceIndex.words(fields[field]);
+                averages[field] += words.size();
+                distinct.addAll(words);
+            }
+            for (String word : distinct) {
+                frequencies.merge(word, 1, Integer::sum);
+            }
+        }
+        for (int field = 0; field < 3; field++) {
+            averages[field] = Math.max(1.0, averages[field] / n);
+        }
+
+        Map<Recipe, Double> scores = new LinkedHashMap<>();
+        for (Recipe recipe : recipes) {
+            String[] fields = fields(recipe);
+            double score = 0;
+            for (Map.Entry<String, Double> weight : weights.entrySet()) {
+                int df = frequencies.getOrDefault(weight.getKey(), 0);
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                double tf = 0;
+                for (int field = 0; field < 3; field++) {
+                    List<String> words = RelevanceIndex.words(fields[field]);
+                    int count = 0;
+                    for (String word : words) {
+                        if (word.equals(weight.getKey())) {
+                            count++;
+                        }
+                    }
+                    if (count > 0) {
+                        tf += FIELD_WEIGHTS[field] * count / (1 - B + B * words.size() / averages[field]);
+                    }
+                }
+                score += idf * weight.getValue() * tf * (K1 + 1) / (tf + K1);
+            }
+            scores.put(recipe, score);
+        }
+        return scores;
+    }
+
+    private static String[] fields(Recipe recipe) {
+        return new String[] {recipe.getTitle(), recipe.getIngredients(), recipe.getInstructions()};
+    }
+
+    private static Set<String> grams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static Recipe randomRecipe(Random random) {
+        Recipe recipe;
+        if (random.nextInt(4) == 0) {
+            String[] template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+            recipe = new Recipe(template[0], template[1], template[2]);
+        } else {
+            recipe = new Recipe(words(random, 1, 3), words(random, 0, 8), words(random, 0, 12));
+        }
+        recipe.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        return recipe;
+    }
+
+    // Vocabulary words, sometimes misspelled or unknown, and a digit-only token that is no word
+    private static String randomQuery(Random random) {
+        StringBuilder query = new StringBuilder();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            int kind = random.nextInt(6);
+            if (kind == 0) {
+                int at = 1 + random.nextInt(word.length() - 1);
+                word = word.substring(0, at) + word.substring(at + 1);
+            } else if (kind == 1) {
+                word = "zz" + word;
+            } else if (kind == 2) {
+                word = word.toUpperCase() + " 42";
+            }
+            query.append(i == 0 ? "" : " ").append(word);
+        }
+        return query.toString();
+    }
+
+    private static String words(Random random, int min, int max) {
+        int count = min + random.nextInt(max - min + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : random.nextBoolean() ? " " : ", ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
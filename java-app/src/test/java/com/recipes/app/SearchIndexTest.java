@@ -0,0 +1,65 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+    private static final String[] WORDS = {"Go", "x", "Egg", "gar", "Garlic", "Bagel", "OX", "fig"};
+    private static final String[] QUERIES = {"g", "ga", "x", "OX", "egg", "gar", "garl", "agel", "z", "e b"};
+
+    @Test
+    void searchMatchesTextScanThroughEdits() {
+        Random random = new Random(7);
+        RecipeManager manager = RecipeManager.withoutView();
+        for (int i = 0; i < 200; i++) {
+            manager.addRecipe(new Recipe(text(random), text(random), "Cook"));
+        }
+
+        for (int round = 0; round < 100; round++) {
+            List<Recipe> current = manager.snapshot();
+            Recipe target = current.get(random.nextInt(current.size()));
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Recipe edited = target.copy();
+                edited.setTitle(text(random));
+                edited.setIngredients(text(random));
+                manager.updateRecipe(edited);
+            } else if (operation == 1) {
+                manager.deleteRecipe(target.getId());
+            } else {
+                manager.addRecipe(new Recipe(text(random), text(random), "Cook"));
+            }
+
+            for (String query : QUERIES) {
+                RecipeFilter filter = new RecipeFilter();
+                filter.setSearchText(query);
+                assertEquals(expected(manager, query), manager.findRecipes(filter), query);
+            }
+        }
+    }
+
+    private static List<Recipe> expected(RecipeManager manager, String query) {
+        String lower = query.toLowerCase();
+        List<Recipe> expected = new ArrayList<>();
+        for (Recipe recipe : manager.snapshot()) {
+            if (recipe.getTitle().toLowerCase().contains(lower)
+                    || recipe.getIngredients().toLowerCase().contains(lower)) {
+                expected.add(recipe);
+            }
+        }
+        return expected;
+    }
+
+    // Mostly one or two words, so many texts are shorter than a trigram
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        if (random.nextInt(3) == 0) {
+            text.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.recipes.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ValueDictionaryTest {
+    @Test
+    void concurrentEncodersAgreeOnCodes() throws Exception {
+        ValueDictionary dictionary = new ValueDictionary.Scope().categories;
+        int values = 20_000;
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<int[]>> encoders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 997;
+                encoders.add(() -> {
+                    int[] codes = new int[values];
+                    for (int i = 0; i < values; i++) {
+                        int value = (i + offset) % values;
+                        codes[value] = dictionary.encode("Value " + value);
+                        assertEquals("Value " + value, dictionary.decode(codes[value]));
+                    }
+                    return codes;
+                });
+            }
+            List<Future<int[]>> results = executor.invokeAll(encoders);
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+            // Six preset categories, then one distinct code per value
+            int[] sorted = first.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < values; i++) {
+                assertEquals(6 + i, sorted[i]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void storesKeepTheirOwnValues() {
+        RecipeManager first = RecipeManager.withoutView();
+        RecipeManager second = RecipeManager.withoutView();
+        Recipe recipe = RecipeImporter.toRecipe(Map.of("title", "Soup", "category", "Brunch",
+            "dietaryRestrictions", List.of("Low-FODMAP", "Vegan")), first.dictionaries());
+        first.addRecipe(recipe);
+        second.addRecipe(recipe.copy());
+        Recipe edited = second.getRecipe(recipe.getId()).copy();
+        edited.setDifficulty("Tricky");
+        second.updateRecipe(edited);
+
+        Recipe stored = second.getRecipe(recipe.getId());
+        assertEquals("Brunch", stored.getCategory());
+        assertEquals("Tricky", stored.getDifficulty());
+        assertEquals(Arrays.asList("Low-FODMAP", "Vegan"), stored.getDietaryRestrictions());
+        assertEquals("Brunch", first.getRecipe(recipe.getId()).getCategory());
+        // After the three presets, "Tricky" is the second store's first own difficulty and
+        // the first store never saw it
+        assertEquals(3, second.dictionaries().difficulties.encode("Tricky"));
+        assertEquals(3, first.dictionaries().difficulties.encode("Fiddly"));
+    }
+}